@@ -53,7 +53,7 @@ public class TankRenderer implements BlockEntityRenderer<AbstractTankBlockEntity
                 RenderHelper.drawFluidInTank(tank, matrices, vertexConsumers, tank.getResource(), 1);
             } else {
                 if (tank.getAmount() > 0) {
-                    RenderHelper.drawFluidInTank(tank, matrices, vertexConsumers, tank.getResource(), (float) tank.getAmount() / tank.getCapacity());
+                    RenderHelper.drawFluidInTank(tank, matrices, vertexConsumers, tank.getResource(), tank.getRenderedFullness(tickDelta));
                 } else if (tank.isLocked()) {
                     RenderHelper.drawFluidInTank(tank, matrices, vertexConsumers, tank.getResource(), 0.01f);
                 }
@@ -24,6 +24,7 @@
 package aztech.modern_industrialization.compat.waila.client;
 
 import aztech.modern_industrialization.MIText;
+import aztech.modern_industrialization.machines.components.CrafterComponent;
 import mcp.mobius.waila.api.IBlockAccessor;
 import mcp.mobius.waila.api.IBlockComponentProvider;
 import mcp.mobius.waila.api.IPluginConfig;
@@ -56,5 +57,17 @@ public class OverclockComponentProvider implements IBlockComponentProvider {
             tooltip.addLine(new WrappedComponent(MIText.EuTOverclocked.text(
                     String.format("%.1f", mult), String.format("%d", currentEu))));
         }
+        if (tag.contains("crafterSleepState")) {
+            MIText text = switch (CrafterComponent.SleepState.byId(tag.getByte("crafterSleepState"))) {
+            case NO_ENERGY -> MIText.CrafterIdleNoEnergy;
+            case NO_RECIPE -> MIText.CrafterIdleNoRecipe;
+            case OUTPUT_BLOCKED -> MIText.CrafterIdleOutputBlocked;
+            case CONDITIONS_NOT_MET -> MIText.CrafterIdleConditionsNotMet;
+            case AWAKE -> null;
+            };
+            if (text != null) {
+                tooltip.addLine(new WrappedComponent(text.text()));
+            }
+        }
     }
 }
@@ -114,7 +114,13 @@ public record TexturesProvider(FabricDataGenerator dataGenerator, boolean runtim
     private void writeTexture(CachedOutput cache, NativeImage image, String textureId) {
         try {
             var path = dataGenerator.getOutputFolder().resolve("assets").resolve(textureId.replace(':', '/'));
-            cache.writeIfNeeded(path, image.asByteArray(), Hashing.sha1().hashBytes(image.asByteArray()));
+            // Textures are generated in parallel: encode and hash outside of the lock
+            byte[] bytes = image.asByteArray();
+            var hash = Hashing.sha1().hashBytes(bytes);
+            // The cache skips the write if the hash didn't change since the last run
+            synchronized (cache) {
+                cache.writeIfNeeded(path, bytes, hash);
+            }
         } catch (IOException ex) {
             throw new RuntimeException("Failed to write texture " + textureId, ex);
         }
@@ -123,7 +129,9 @@ public record TexturesProvider(FabricDataGenerator dataGenerator, boolean runtim
     private void customJsonSave(CachedOutput cache, JsonElement jsonElement, String path) {
         try {
             Path pathFormatted = dataGenerator.getOutputFolder().resolve("assets").resolve(path.replace(':', '/'));
-            DataProvider.saveStable(cache, jsonElement, pathFormatted);
+            synchronized (cache) {
+                DataProvider.saveStable(cache, jsonElement, pathFormatted);
+            }
         } catch (IOException ex) {
             throw new RuntimeException("Failed to write element in texture creation " + path, ex);
         }
@@ -42,6 +42,7 @@ public class ConfigurableInventoryS2CPacketHandlers {
                 // update stack
                 ConfigurableItemStack newStack = new ConfigurableItemStack(tag);
                 csh.inventory.getItemStacks().set(stackId, newStack);
+                csh.inventory.updateStorageIndex();
                 // update slot
                 for (int i = 0; i < csh.slots.size(); ++i) {
                     Slot slot = csh.slots.get(i);
@@ -69,6 +70,7 @@ public class ConfigurableInventoryS2CPacketHandlers {
                 // update stack
                 ConfigurableFluidStack newStack = new ConfigurableFluidStack(tag);
                 csh.inventory.getFluidStacks().set(stackId, newStack);
+                csh.inventory.updateStorageIndex();
                 // update slot
                 for (int i = 0; i < csh.slots.size(); ++i) {
                     Slot slot = csh.slots.get(i);
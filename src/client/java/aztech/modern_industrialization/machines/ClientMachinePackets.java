@@ -27,18 +27,23 @@ import aztech.modern_industrialization.machines.gui.MachineMenuClient;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.network.FriendlyByteBuf;
 
 @Environment(EnvType.CLIENT)
 public class ClientMachinePackets {
     public static final ClientPlayNetworking.PlayChannelHandler ON_COMPONENT_SYNC = (mc, handler, buf, sender) -> {
         int syncId = buf.readInt();
-        int componentIndex = buf.readInt();
         buf.retain();
         mc.execute(() -> {
             try {
                 if (mc.player.containerMenu.containerId == syncId) {
                     MachineMenuClient screenHandler = (MachineMenuClient) mc.player.containerMenu;
-                    screenHandler.components.get(componentIndex).readCurrentData(buf);
+                    // The packet contains all the components that changed during the tick.
+                    while (buf.isReadable()) {
+                        int componentIndex = buf.readVarInt();
+                        int length = buf.readVarInt();
+                        screenHandler.components.get(componentIndex).readCurrentData(new FriendlyByteBuf(buf.readSlice(length)));
+                    }
                 }
             } finally {
                 buf.release();
@@ -26,7 +26,6 @@ package aztech.modern_industrialization.textures;
 import aztech.modern_industrialization.MIFluids;
 import aztech.modern_industrialization.ModernIndustrialization;
 import aztech.modern_industrialization.definition.FluidDefinition;
-import aztech.modern_industrialization.materials.Material;
 import aztech.modern_industrialization.materials.MaterialRegistry;
 import aztech.modern_industrialization.materials.part.MaterialItemPart;
 import aztech.modern_industrialization.materials.property.MaterialProperty;
@@ -43,15 +42,14 @@ public final class MITextures {
 
     public static void offerTextures(BiConsumer<NativeImage, String> textureWriter, BiConsumer<JsonElement, String> mcMetaWriter,
             ResourceProvider manager) {
-        TextureManager mtm = new TextureManager(manager, textureWriter, mcMetaWriter);
-
-        try {
-            for (Material material : MaterialRegistry.getMaterials().values()) {
+        try (TextureManager mtm = new TextureManager(manager, textureWriter, mcMetaWriter)) {
+            // Materials are independent from each other, generate them in parallel
+            MaterialRegistry.getMaterials().values().parallelStream().forEach(material -> {
                 var meanRgb = material.get(MaterialProperty.MEAN_RGB);
 
                 if (meanRgb == 0) {
                     ModernIndustrialization.LOGGER.error("Missing mean RGB for material {}", material.name);
-                    continue;
+                    return;
                 }
 
                 IColoramp coloramp = new Coloramp(mtm, meanRgb, material.name);
@@ -59,7 +57,7 @@ public final class MITextures {
                 for (MaterialItemPart part : material.getParts().values()) {
                     PartTextureGenerator.processPart(coloramp, mtm, material, part);
                 }
-            }
+            });
 
             for (FluidDefinition fluid : MIFluids.FLUIDS.values()) {
                 registerFluidTextures(mtm, fluid);
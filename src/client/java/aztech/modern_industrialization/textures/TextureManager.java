@@ -27,19 +27,37 @@ import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.mojang.blaze3d.platform.NativeImage;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceProvider;
 
-public class TextureManager {
+/**
+ * Texture access for texture generation. Can be used from multiple threads at
+ * once.
+ */
+public class TextureManager implements AutoCloseable {
     private final ResourceProvider rm;
     private final BiConsumer<NativeImage, String> textureWriter;
     private final BiConsumer<JsonElement, String> mcMetaWriter;
-    private final List<Runnable> endRunnables = new ArrayList<>();
+    private final List<Runnable> endRunnables = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * Decoded assets, shared by all the textures that use them. Empty if the asset
+     * doesn't exist.
+     */
+    private final Map<String, Optional<NativeImage>> decodedAssets = new ConcurrentHashMap<>();
+    /**
+     * Decoded assets that were replaced by a generated texture. Other threads might
+     * still be copying from them, so they are only closed in {@link #close()}.
+     */
+    private final List<NativeImage> evictedAssets = Collections.synchronizedList(new ArrayList<>());
 
     private final Gson GSON = new Gson();
 
@@ -50,20 +68,44 @@ public class TextureManager {
     }
 
     public boolean hasAsset(String asset) {
-        return rm.getResource(new ResourceLocation(asset)).isPresent();
+        return getDecodedAsset(asset).isPresent();
     }
 
+    /**
+     * Return a new copy of the texture, that the caller is responsible for
+     * closing.
+     */
     public NativeImage getAssetAsTexture(String textureId) throws IOException {
-        var resource = rm.getResource(new ResourceLocation(textureId));
-        if (resource.isPresent()) {
-            try (var stream = resource.get().open()) {
-                return NativeImage.read(stream);
-            }
+        var decoded = getDecodedAsset(textureId);
+        if (decoded.isPresent()) {
+            NativeImage image = decoded.get();
+            NativeImage copy = new NativeImage(image.format(), image.getWidth(), image.getHeight(), false);
+            copy.copyFrom(image);
+            return copy;
         } else {
             throw new IOException("Couldn't find texture " + textureId);
         }
     }
 
+    private Optional<NativeImage> getDecodedAsset(String textureId) {
+        try {
+            return decodedAssets.computeIfAbsent(textureId, id -> {
+                var resource = rm.getResource(new ResourceLocation(id));
+                if (resource.isEmpty()) {
+                    return Optional.empty();
+                }
+                try (var stream = resource.get().open()) {
+                    return Optional.of(NativeImage.read(stream));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            // Not cached: the next call will try again
+            return Optional.empty();
+        }
+    }
+
     /**
      * Add texture if it's not already loaded, but doesn't close the image.
      */
@@ -92,6 +134,11 @@ public class TextureManager {
             // Write generated texture
             textureWriter.accept(image, textureId);
         }
+        // The texture might have been cached before it was generated
+        var cached = decodedAssets.remove(textureId);
+        if (cached != null) {
+            cached.ifPresent(evictedAssets::add);
+        }
 
         // Close image in any case...
         if (closeImage) {
@@ -108,9 +155,30 @@ public class TextureManager {
     }
 
     public void onEnd() {
-        for (Runnable runnable : endRunnables) {
+        List<Runnable> runnables;
+        synchronized (endRunnables) {
+            runnables = new ArrayList<>(endRunnables);
+            endRunnables.clear();
+        }
+        for (Runnable runnable : runnables) {
             runnable.run();
         }
-        endRunnables.clear();
+    }
+
+    /**
+     * Release the decoded assets.
+     */
+    @Override
+    public void close() {
+        for (var decoded : decodedAssets.values()) {
+            decoded.ifPresent(NativeImage::close);
+        }
+        decodedAssets.clear();
+        synchronized (evictedAssets) {
+            for (var evicted : evictedAssets) {
+                evicted.close();
+            }
+            evictedAssets.clear();
+        }
     }
 }
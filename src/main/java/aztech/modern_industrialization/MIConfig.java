@@ -80,6 +80,9 @@ public class MIConfig implements ConfigData {
     @EnglishTranslation(value = "Additionally load resources in modern_industrialization/generated_resources")
     public boolean loadRuntimeGeneratedResources = true;
     @ConfigEntry.Gui.RequiresRestart
+    @EnglishTranslation(value = "Store runtime generated resources in a single indexed archive, faster to load on slow storage (Restart needed)")
+    public boolean packGeneratedResources = false;
+    @ConfigEntry.Gui.RequiresRestart
     @EnglishTranslation(value = "Removes trades from the Industrialist villager (Restart needed)")
     public boolean removeIndustrialistTrades = false;
 
@@ -94,6 +94,10 @@ public enum MIText {
     ConfigurableSlotCapacity("Capacity: %s. Adjust with mouse scroll."),
     ConsumesTheFollowing("Consumes the following for : "),
     ContinuousOperation("Maximum efficiency reached only under continuous operation"),
+    CrafterIdleConditionsNotMet("Idle: process conditions not met"),
+    CrafterIdleNoEnergy("Idle: not enough energy"),
+    CrafterIdleNoRecipe("Idle: no matching recipe"),
+    CrafterIdleOutputBlocked("Idle: output full"),
     CurrentEuRecipe("Recipe Current : %s"),
     CurseForge("[CurseForge]"),
     CustomOreGen("Customizable Ore Generation (Need Restart)"),
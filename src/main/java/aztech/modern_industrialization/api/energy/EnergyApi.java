@@ -53,6 +53,11 @@ public class EnergyApi {
             return maxAmount;
         }
 
+        @Override
+        public long getExtractLimit() {
+            return Long.MAX_VALUE;
+        }
+
         @Override
         public long getAmount() {
             return Long.MAX_VALUE;
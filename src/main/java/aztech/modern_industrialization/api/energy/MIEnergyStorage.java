@@ -45,6 +45,27 @@ public interface MIEnergyStorage extends EnergyStorage {
         };
     }
 
+    /**
+     * Return how much energy {@link #insert} would accept right now, without
+     * having to simulate it. Cables use this to avoid opening a transaction for
+     * every target.
+     *
+     * @return The amount, or a negative value if this storage can't tell.
+     */
+    default long getInsertLimit() {
+        return -1;
+    }
+
+    /**
+     * Return how much energy {@link #extract} would provide right now, without
+     * having to simulate it.
+     *
+     * @return The amount, or a negative value if this storage can't tell.
+     */
+    default long getExtractLimit() {
+        return -1;
+    }
+
     interface NoExtract extends MIEnergyStorage {
         @Override
         default boolean supportsExtraction() {
@@ -55,6 +76,11 @@ public interface MIEnergyStorage extends EnergyStorage {
         default long extract(long maxAmount, TransactionContext transaction) {
             return 0;
         }
+
+        @Override
+        default long getExtractLimit() {
+            return 0;
+        }
     }
 
     interface NoInsert extends MIEnergyStorage {
@@ -67,5 +93,10 @@ public interface MIEnergyStorage extends EnergyStorage {
         default long insert(long maxAmount, TransactionContext transaction) {
             return 0;
         }
+
+        @Override
+        default long getInsertLimit() {
+            return 0;
+        }
     }
 }
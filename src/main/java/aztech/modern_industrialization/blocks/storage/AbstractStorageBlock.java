@@ -29,6 +29,8 @@ import net.fabricmc.fabric.api.transfer.v1.storage.StorageUtil;
 import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
@@ -56,6 +58,15 @@ public class AbstractStorageBlock<T extends TransferVariant<?>> extends Block im
         return factory.newBlockEntity(pos, state);
     }
 
+    @SuppressWarnings("deprecation")
+    @Override
+    public void tick(BlockState state, ServerLevel level, BlockPos pos, RandomSource random) {
+        // Delayed client sync, see AbstractStorageBlockEntity#requestSync
+        if (level.getBlockEntity(pos) instanceof AbstractStorageBlockEntity<?> storage) {
+            storage.onScheduledSync();
+        }
+    }
+
     protected ItemStack getStack(BlockEntity entity) {
         var storageBlockEntity = (AbstractStorageBlockEntity<?>) entity;
         ItemStack stack = new ItemStack(asItem());
@@ -63,6 +63,25 @@ public abstract class AbstractStorageBlockEntity<T extends TransferVariant<?>> e
 
     private final ResourceParticipant participant = new ResourceParticipant();
 
+    /**
+     * Minimum number of ticks between two client syncs. Changes in between are
+     * sent together.
+     */
+    public static final int SYNC_INTERVAL = 10;
+    // Server-side sync state
+    private long lastSyncTick = -SYNC_INTERVAL;
+    private boolean syncScheduled = false;
+    /**
+     * Resource as of the last scheduled sync.
+     */
+    @Nullable
+    private T lastSyncedResource = null;
+    /**
+     * True if the packet of the pending scheduled sync only needs the amount and
+     * the lock.
+     */
+    private boolean pendingSyncAmountOnly = false;
+
     public AbstractStorageBlockEntity(BlockEntityType<?> type, BlockPos pos, BlockState state) {
         super(type, pos, state);
         resource = getBlankResource();
@@ -78,13 +97,58 @@ public abstract class AbstractStorageBlockEntity<T extends TransferVariant<?>> e
         version++;
         setChanged();
         if (!level.isClientSide)
-            sync();
+            requestSync();
+    }
+
+    /**
+     * Sync now if the last sync was long enough ago, otherwise schedule a block
+     * tick to sync later.
+     */
+    private void requestSync() {
+        if (syncScheduled) {
+            return;
+        }
+        long ticksSinceSync = level.getGameTime() - lastSyncTick;
+        if (ticksSinceSync >= SYNC_INTERVAL) {
+            scheduledSync();
+        } else {
+            syncScheduled = true;
+            level.scheduleTick(worldPosition, getBlockState().getBlock(), (int) (SYNC_INTERVAL - ticksSinceSync));
+        }
+    }
+
+    /**
+     * Called by the block tick scheduled in {@link #requestSync()}.
+     */
+    void onScheduledSync() {
+        if (syncScheduled) {
+            syncScheduled = false;
+            scheduledSync();
+        }
+    }
+
+    private void scheduledSync() {
+        lastSyncTick = level.getGameTime();
+        pendingSyncAmountOnly = resource.equals(lastSyncedResource);
+        lastSyncedResource = resource;
+        sync();
     }
 
     @Nullable
     @Override
     public Packet<ClientGamePacketListener> getUpdatePacket() {
-        return ClientboundBlockEntityDataPacket.create(this);
+        CompoundTag tag = new CompoundTag();
+        if (pendingSyncAmountOnly && resource.equals(lastSyncedResource)) {
+            // Tracking clients already know the resource, only send the amount and the lock.
+            // Only the first packet after the sync is compact: other callers may send it to a
+            // client that doesn't know the resource, and then the broadcast gets everything.
+            pendingSyncAmountOnly = false;
+            tag.putBoolean("amountOnly", true);
+            saveAmountAndLock(tag);
+        } else {
+            saveAdditional(tag);
+        }
+        return ClientboundBlockEntityDataPacket.create(this, be -> tag);
     }
 
     @Override
@@ -231,7 +295,9 @@ public abstract class AbstractStorageBlockEntity<T extends TransferVariant<?>> e
 
     @Override
     public void load(CompoundTag tag) {
-        resource = loadResource(tag);
+        if (!tag.getBoolean("amountOnly")) {
+            resource = loadResource(tag);
+        }
 
         if (behaviour.isLockable()) {
             isLocked = tag.getBoolean("locked");
@@ -248,7 +314,11 @@ public abstract class AbstractStorageBlockEntity<T extends TransferVariant<?>> e
 
     @Override
     public void saveAdditional(CompoundTag tag) {
+        saveAmountAndLock(tag);
+        saveResource(resource, tag);
+    }
 
+    private void saveAmountAndLock(CompoundTag tag) {
         if (behaviour.isLockable()) {
             tag.putBoolean("locked", isLocked);
         }
@@ -256,7 +326,6 @@ public abstract class AbstractStorageBlockEntity<T extends TransferVariant<?>> e
         if (!behaviour.isCreative()) {
             tag.putLong("amt", amount);
         }
-        saveResource(resource, tag);
     }
 
     public void setResource(T resource) {
@@ -28,18 +28,52 @@ import aztech.modern_industrialization.util.NbtHelper;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.Mth;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 
 public abstract class AbstractTankBlockEntity extends AbstractStorageBlockEntity<FluidVariant> {
 
+    // Client-side interpolation of the rendered fluid level between two syncs
+    private float previousFullness;
+    private long fullnessChangeTick;
+
     public AbstractTankBlockEntity(BlockEntityType<?> bet,
             BlockPos pos,
             BlockState state) {
         super(bet, pos, state);
     }
 
+    @Override
+    public void load(CompoundTag tag) {
+        // Only interpolate amount changes of the same fluid
+        boolean interpolate = level != null && level.isClientSide && tag.getBoolean("amountOnly");
+        float displayedFullness = interpolate ? getRenderedFullness(0) : 0;
+        super.load(tag);
+        if (level != null && level.isClientSide) {
+            previousFullness = interpolate ? displayedFullness : getFullness();
+            fullnessChangeTick = level.getGameTime();
+        }
+    }
+
+    private float getFullness() {
+        long capacity = getCapacity();
+        return capacity == 0 ? 0 : (float) getAmount() / capacity;
+    }
+
+    /**
+     * Return the fullness to render on the client, moving from the previous synced
+     * fullness to the current one over one sync interval.
+     */
+    public float getRenderedFullness(float tickDelta) {
+        float progress = (level.getGameTime() - fullnessChangeTick + tickDelta) / SYNC_INTERVAL;
+        if (progress >= 1) {
+            return getFullness();
+        }
+        return Mth.lerp(progress, previousFullness, getFullness());
+    }
+
     @Override
     public FluidVariant loadResource(CompoundTag tag) {
         return NbtHelper.getFluidCompatible(tag, "fluid");
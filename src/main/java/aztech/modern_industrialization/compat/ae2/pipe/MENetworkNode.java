@@ -57,6 +57,7 @@ public class MENetworkNode extends PipeNetworkNode {
 
                 @Override
                 public void onSaveChanges(MENetworkNode nodeOwner, IGridNode node) {
+                    nodeOwner.markUnsaved();
                 }
             }).setFlags(GridFlags.PREFERRED).setIdlePowerUsage(0.0);
         }
@@ -42,6 +42,9 @@ public class OverclockComponentProvider implements IDataProvider<MachineBlockEnt
                 data.raw().putLong("baseRecipeEu", crafterComponent.getBaseRecipeEu());
                 data.raw().putLong("currentRecipeEu", crafterComponent.getCurrentRecipeEu());
             }
+            if (crafterComponent.getSleepState() != CrafterComponent.SleepState.AWAKE) {
+                data.raw().putByte("crafterSleepState", (byte) crafterComponent.getSleepState().ordinal());
+            }
         }
     }
 }
@@ -242,6 +242,7 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
                     if (stack.key.isOf(instance) || (stack.isResourceBlank() && allowEmptyStacks)) {
                         stack.lockedInstance = instance;
                         stack.playerLocked = true;
+                        stack.notifyListeners();
                         return;
                     }
                 }
@@ -257,6 +258,7 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
             if (simulation.isActing()) {
                 lockedInstance = instance;
                 playerLocked = true;
+                notifyListeners();
             }
             return true;
         }
@@ -319,6 +321,7 @@ public abstract class AbstractConfigurableStack<T, K extends TransferVariant<T>>
     public void readSnapshot(ResourceAmount<K> ra) {
         this.amount = ra.amount();
         this.key = ra.resource();
+        ChangeListener.notifyRollback(listeners);
     }
 
     @Override
@@ -30,7 +30,18 @@ public abstract class ChangeListener {
 
     protected abstract void onChange();
 
-    protected abstract boolean isValid(Object token); // TODO: do we really need the token? (it's unused for now)
+    /**
+     * Return false to stop listening to the stack this listener was registered on with {@code token}.
+     */
+    protected abstract boolean isValid(Object token);
+
+    /**
+     * Called when a stack is restored to its state before an aborted transaction.
+     * The mutations done inside the transaction already called {@link #onChange()},
+     * the rollback itself does not call it again.
+     */
+    protected void onRollback() {
+    }
 
     public void listenAll(List<? extends AbstractConfigurableStack<?, ?>> stacks, Object token) {
         for (var stack : stacks) {
@@ -48,4 +59,15 @@ public abstract class ChangeListener {
             }
         }
     }
+
+    public static void notifyRollback(Map<ChangeListener, Object> listeners) {
+        for (var it = listeners.entrySet().iterator(); it.hasNext();) {
+            var entry = it.next();
+            if (entry.getKey().isValid(entry.getValue())) {
+                entry.getKey().onRollback();
+            } else {
+                it.remove();
+            }
+        }
+    }
 }
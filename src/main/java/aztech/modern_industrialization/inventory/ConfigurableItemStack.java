@@ -173,7 +173,12 @@ public class ConfigurableItemStack extends AbstractConfigurableStack<Item, ItemV
         if (!isIncrease) {
             delta = -delta;
         }
-        adjustedCapacity = Math.min(64, Math.max((int) amount, adjustedCapacity + delta));
+        int newCapacity = Math.min(64, Math.max((int) amount, adjustedCapacity + delta));
+        if (newCapacity != adjustedCapacity) {
+            adjustedCapacity = newCapacity;
+            // Wakes up machines that were blocked by a full output.
+            notifyListeners();
+        }
     }
 
     public int getAdjustedCapacity() {
@@ -52,6 +52,19 @@ public final class MIInventory implements IComponent {
     public final SlotPositions itemPositions;
     public final SlotPositions fluidPositions;
 
+    private boolean unsavedChanges = false;
+    private final ChangeListener saveListener = new ChangeListener() {
+        @Override
+        protected void onChange() {
+            unsavedChanges = true;
+        }
+
+        @Override
+        protected boolean isValid(Object token) {
+            return true;
+        }
+    };
+
     /**
      * Build a new MI inventory. If you need to access the stacks, make sure to
      * reference them through this inventory and not directly!
@@ -71,6 +84,16 @@ public final class MIInventory implements IComponent {
             throw new IllegalArgumentException(
                     "Mismatched fluid slots and positions. Slot count: " + fluidStacks.size() + ", position count: " + fluidPositions.size());
         }
+        addListener(saveListener, null);
+        updateStorageIndex();
+    }
+
+    /**
+     * Must be called after some stacks are replaced in the lists, so that the storages index the new stacks.
+     */
+    public void updateStorageIndex() {
+        itemStorage.enableIndex();
+        fluidStorage.enableIndex();
     }
 
     public void addListener(ChangeListener listener, Object token) {
@@ -140,6 +163,17 @@ public final class MIInventory implements IComponent {
 
         SlotConfig.readSlotList(itemStorage.stacks, newItemStacks);
         SlotConfig.readSlotList(fluidStorage.stacks, newFluidStacks);
+        // The stacks were replaced, so the listener must be registered again.
+        addListener(saveListener, null);
+        updateStorageIndex();
+        unsavedChanges = false;
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        boolean changed = unsavedChanges;
+        unsavedChanges = false;
+        return changed;
     }
 
     static {
@@ -23,8 +23,12 @@
  */
 package aztech.modern_industrialization.inventory;
 
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.fabricmc.fabric.api.transfer.v1.storage.StoragePreconditions;
@@ -33,14 +37,112 @@ import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
 
 public class MIStorage<T, K extends TransferVariant<T>, S extends AbstractConfigurableStack<T, K>> implements Storage<K> {
+    private static final BitSet NO_SLOTS = new BitSet();
+
     final List<S> stacks;
     private final boolean oneSlotPerResource; // true for fluids, false for items
+    /**
+     * Index of the slots, only kept for long-lived storages (see {@link #enableIndex()}).
+     * Each slot is listed under the object of its resource and under its locked instance, and empty unlocked slots are listed separately.
+     * Changed slots are only marked dirty by their listener, and reindexed before the next operation.
+     */
+    private SlotListener[] slotListeners = null;
+    private final Map<T, BitSet> slotsByObject = new Reference2ObjectOpenHashMap<>();
+    private final BitSet emptySlots = new BitSet();
+    private final BitSet dirtySlots = new BitSet();
+    private final List<T> indexedObjects = new ArrayList<>();
+    private final List<T> indexedLocks = new ArrayList<>();
 
     protected MIStorage(List<S> stacks, boolean oneSlotPerResource) {
         this.stacks = stacks;
         this.oneSlotPerResource = oneSlotPerResource;
     }
 
+    /**
+     * Index the slots so that insert and extract only visit the slots that may match the resource.
+     * This registers a listener on every stack, so it must only be used for storages that outlive their stacks,
+     * and it must be called again after some stacks are replaced in the list.
+     */
+    void enableIndex() {
+        if (slotListeners == null) {
+            slotListeners = new SlotListener[stacks.size()];
+            for (int i = 0; i < stacks.size(); ++i) {
+                slotListeners[i] = new SlotListener(this, i);
+                indexedObjects.add(null);
+                indexedLocks.add(null);
+            }
+        }
+        for (int i = 0; i < stacks.size(); ++i) {
+            stacks.get(i).addListener(slotListeners[i], stacks.get(i));
+        }
+        dirtySlots.set(0, stacks.size());
+    }
+
+    private void updateIndex() {
+        for (int i = dirtySlots.nextSetBit(0); i >= 0; i = dirtySlots.nextSetBit(i + 1)) {
+            S stack = stacks.get(i);
+            T object = stack.isResourceBlank() ? null : stack.getResource().getObject();
+            T lock = stack.getLockedInstance();
+            T oldObject = indexedObjects.get(i);
+            T oldLock = indexedLocks.get(i);
+
+            if (object != oldObject || lock != oldLock) {
+                if (oldObject != null && oldObject != object && oldObject != lock) {
+                    removeFromIndex(oldObject, i);
+                }
+                if (oldLock != null && oldLock != oldObject && oldLock != object && oldLock != lock) {
+                    removeFromIndex(oldLock, i);
+                }
+                if (object != null) {
+                    slotsByObject.computeIfAbsent(object, o -> new BitSet()).set(i);
+                }
+                if (lock != null) {
+                    slotsByObject.computeIfAbsent(lock, o -> new BitSet()).set(i);
+                }
+                indexedObjects.set(i, object);
+                indexedLocks.set(i, lock);
+            }
+            emptySlots.set(i, stack.getAmount() == 0 && lock == null);
+        }
+        dirtySlots.clear();
+    }
+
+    private void removeFromIndex(T object, int slot) {
+        BitSet slots = slotsByObject.get(object);
+        slots.clear(slot);
+        if (slots.isEmpty()) {
+            slotsByObject.remove(object);
+        }
+    }
+
+    private BitSet allSlots() {
+        BitSet slots = new BitSet(stacks.size());
+        slots.set(0, stacks.size());
+        return slots;
+    }
+
+    /**
+     * Slots that contain or are locked to the object. The returned set may contain other slots, and must not be modified.
+     */
+    private BitSet getMatchingSlots(T object) {
+        if (slotListeners == null) {
+            return allSlots();
+        }
+        updateIndex();
+        return slotsByObject.getOrDefault(object, NO_SLOTS);
+    }
+
+    /**
+     * Empty unlocked slots. The returned set may contain other slots, and must not be modified.
+     */
+    private BitSet getEmptySlots() {
+        if (slotListeners == null) {
+            return allSlots();
+        }
+        updateIndex();
+        return emptySlots;
+    }
+
     /**
      * @param filter    Return false to skip some configurable stacks.
      * @param lockSlots Whether to lock slots or not.
@@ -50,52 +152,66 @@ public class MIStorage<T, K extends TransferVariant<T>, S extends AbstractConfig
         boolean containsResourceAlready = false;
         long totalInserted = 0;
 
-        outer: for (int iter = 0; iter < 2; ++iter) {
-            for (S stack : stacks) {
-                if (!filter.test(stack))
-                    continue;
-                boolean isSlotEmpty = stack.getAmount() == 0 && stack.getLockedInstance() == null;
-                boolean canInsert;
-
-                if (isSlotEmpty) {
-                    // Always check for the second iteration.
-                    if (oneSlotPerResource) {
-                        // Additionally check that the resource is not contained yet.
-                        canInsert = iter == 1 && !containsResourceAlready;
-                    } else {
-                        canInsert = iter == 1;
-                    }
-                } else if (stack.getAmount() == 0) {
-                    // If the amount is 0, we check if the lock allows it.
-                    canInsert = stack.isResourceAllowedByLock(resource);
-                } else {
-                    // Otherwise we check that the resources match exactly.
-                    canInsert = stack.getResource().equals(resource);
-                }
+        // First, insert into the slots that contain the resource or that are locked to it.
+        BitSet matchingSlots = getMatchingSlots(resource.getObject());
+        for (int i = matchingSlots.nextSetBit(0); i >= 0 && totalInserted < maxAmount; i = matchingSlots.nextSetBit(i + 1)) {
+            S stack = stacks.get(i);
+            if (!filter.test(stack))
+                continue;
+            boolean canInsert;
 
-                if (canInsert) {
-                    long inserted = Math.min(maxAmount - totalInserted, stack.getRemainingCapacityFor(resource));
+            if (stack.getAmount() == 0) {
+                // If the amount is 0, we check if the lock allows it. Empty unlocked slots are only used in the second pass.
+                canInsert = stack.getLockedInstance() != null && stack.isResourceAllowedByLock(resource);
+            } else {
+                // Otherwise we check that the resources match exactly.
+                canInsert = stack.getResource().equals(resource);
+            }
 
-                    if (inserted > 0) {
-                        stack.updateSnapshots(tx);
-                        stack.setKey(resource);
-                        stack.increment(inserted);
+            if (canInsert) {
+                totalInserted += insertIntoSlot(stack, resource, maxAmount - totalInserted, tx, lockSlots);
+            }
+        }
 
-                        if (lockSlots) {
-                            stack.enableMachineLock(resource.getObject());
-                        }
-                    }
+        if (totalInserted < maxAmount && oneSlotPerResource) {
+            // Additionally check that the resource is not contained yet.
+            matchingSlots = getMatchingSlots(resource.getObject());
+            for (int i = matchingSlots.nextSetBit(0); i >= 0 && !containsResourceAlready; i = matchingSlots.nextSetBit(i + 1)) {
+                S stack = stacks.get(i);
+                containsResourceAlready = filter.test(stack) && stack.getResource().equals(resource);
+            }
+        }
 
-                    totalInserted += inserted;
-                }
+        // Then, insert into the empty slots.
+        BitSet emptySlots = getEmptySlots();
+        for (int i = emptySlots.nextSetBit(0); i >= 0 && totalInserted < maxAmount && !containsResourceAlready; i = emptySlots.nextSetBit(i + 1)) {
+            S stack = stacks.get(i);
+            if (!filter.test(stack) || stack.getAmount() != 0 || stack.getLockedInstance() != null)
+                continue;
 
-                containsResourceAlready = containsResourceAlready || stack.getResource().equals(resource);
-            }
+            totalInserted += insertIntoSlot(stack, resource, maxAmount - totalInserted, tx, lockSlots);
+            containsResourceAlready = oneSlotPerResource && stack.getResource().equals(resource);
         }
 
         return totalInserted;
     }
 
+    private long insertIntoSlot(S stack, K resource, long maxAmount, TransactionContext tx, boolean lockSlots) {
+        long inserted = Math.min(maxAmount, stack.getRemainingCapacityFor(resource));
+
+        if (inserted > 0) {
+            stack.updateSnapshots(tx);
+            stack.setKey(resource);
+            stack.increment(inserted);
+
+            if (lockSlots) {
+                stack.enableMachineLock(resource.getObject());
+            }
+        }
+
+        return inserted;
+    }
+
     public long insertAllSlot(K resource, long maxAmount, TransactionContext tx) {
         return insert(resource, maxAmount, tx, (slot) -> true, false);
     }
@@ -108,7 +224,8 @@ public class MIStorage<T, K extends TransferVariant<T>, S extends AbstractConfig
     public long extract(K resource, long maxAmount, TransactionContext transaction, Predicate<? super S> filter) {
         StoragePreconditions.notBlankNotNegative(resource, maxAmount);
         long amount = 0;
-        for (int i = 0; i < stacks.size() && amount < maxAmount; ++i) {
+        BitSet slots = getMatchingSlots(resource.getObject());
+        for (int i = slots.nextSetBit(0); i >= 0 && amount < maxAmount; i = slots.nextSetBit(i + 1)) {
             if (!filter.test(stacks.get(i))) {
                 continue;
             }
@@ -128,7 +245,8 @@ public class MIStorage<T, K extends TransferVariant<T>, S extends AbstractConfig
     public long extractAllSlot(K resource, long maxAmount, TransactionContext transaction, Predicate<? super S> filter) {
         StoragePreconditions.notBlankNotNegative(resource, maxAmount);
         long amount = 0;
-        for (int i = 0; i < stacks.size() && amount < maxAmount; ++i) {
+        BitSet slots = getMatchingSlots(resource.getObject());
+        for (int i = slots.nextSetBit(0); i >= 0 && amount < maxAmount; i = slots.nextSetBit(i + 1)) {
             if (!filter.test(stacks.get(i))) {
                 continue;
             }
@@ -146,4 +264,30 @@ public class MIStorage<T, K extends TransferVariant<T>, S extends AbstractConfig
     public Iterator<StorageView<K>> iterator() {
         return (Iterator) stacks.iterator();
     }
+
+    private static class SlotListener extends ChangeListener {
+        private final MIStorage<?, ?, ?> storage;
+        private final int slot;
+
+        private SlotListener(MIStorage<?, ?, ?> storage, int slot) {
+            this.storage = storage;
+            this.slot = slot;
+        }
+
+        @Override
+        protected void onChange() {
+            storage.dirtySlots.set(slot);
+        }
+
+        @Override
+        protected void onRollback() {
+            storage.dirtySlots.set(slot);
+        }
+
+        @Override
+        protected boolean isValid(Object token) {
+            // The token is the stack, which is no longer listened to once it has been replaced.
+            return storage.stacks.get(slot) == token;
+        }
+    }
 }
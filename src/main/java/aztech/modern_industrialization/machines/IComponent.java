@@ -30,6 +30,11 @@ public interface IComponent {
 
     void readNbt(CompoundTag tag);
 
+    /**
+     * Write the data synced with the client. Update packets only contain the
+     * components whose client data changed, so {@link #readClientNbt} must only
+     * read the keys written here.
+     */
     default void writeClientNbt(CompoundTag tag) {
         writeNbt(tag);
     }
@@ -38,6 +43,24 @@ public interface IComponent {
         readNbt(tag);
     }
 
+    /**
+     * Return true if the state written by {@link #writeNbt} may have changed since
+     * the last call, and start tracking changes from now on. Used by
+     * {@link MachineBlockEntity#setChangedIfComponentsChanged} to only mark the
+     * chunk unsaved when something actually changed. Components that already call
+     * {@code setChanged()} on every change of their saved state can return false.
+     */
+    default boolean consumeUnsavedChanges() {
+        return true;
+    }
+
+    /**
+     * Called on the server when the machine is removed from the world, either
+     * because it was broken or because its chunk was unloaded.
+     */
+    default void onRemoved() {
+    }
+
     interface ClientOnly extends IComponent {
         @Override
         default void writeNbt(CompoundTag tag) {
@@ -52,6 +75,11 @@ public interface IComponent {
 
         @Override
         void readClientNbt(CompoundTag tag);
+
+        @Override
+        default boolean consumeUnsavedChanges() {
+            return false;
+        }
     }
 
     interface ServerOnly extends IComponent {
@@ -115,6 +115,15 @@ public class MachineBlock extends Block implements TickableBlock {
         super.onRemove(state, world, pos, newState, moved);
     }
 
+    @SuppressWarnings("deprecation")
+    @Override
+    public void neighborChanged(BlockState state, Level world, BlockPos pos, Block block, BlockPos fromPos, boolean isMoving) {
+        super.neighborChanged(state, world, pos, block, fromPos, isMoving);
+        if (!world.isClientSide && world.getBlockEntity(pos) instanceof MachineBlockEntity machine) {
+            machine.onNeighborChanged();
+        }
+    }
+
     public MachineBlockEntity getBlockEntityInstance() {
         if (blockEntityInstance == null) {
             blockEntityInstance = newBlockEntity(BlockPos.ZERO, this.defaultBlockState());
@@ -37,6 +37,7 @@ import aztech.modern_industrialization.machines.models.MachineModelClientData;
 import aztech.modern_industrialization.util.NbtHelper;
 import aztech.modern_industrialization.util.WorldHelper;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import net.fabricmc.fabric.api.rendering.data.v1.RenderAttachmentBlockEntity;
@@ -79,6 +80,21 @@ public abstract class MachineBlockEntity extends FastBlockEntity
      * Server-side only: true if the next call to sync() will trigger a remesh.
      */
     private boolean syncCausesRemesh = true;
+    /**
+     * Server-side only: true if sync() was called since the last delta update
+     * packet was built.
+     */
+    private boolean syncPending = false;
+    /**
+     * Server-side only: client data of each component as of the last delta update
+     * packet, used to only send the components that changed.
+     */
+    @Nullable
+    private CompoundTag[] lastSyncedComponents = null;
+    /**
+     * Server-side only: incremented every time a neighbor of this machine changes.
+     */
+    private int neighborChanges = 0;
 
     public final OrientationComponent orientation;
     public final PlacedByComponent placedBy;
@@ -100,6 +116,33 @@ public abstract class MachineBlockEntity extends FastBlockEntity
         Collections.addAll(icomponents, components);
     }
 
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+        if (!level.isClientSide) {
+            for (IComponent component : icomponents) {
+                component.onRemoved();
+            }
+        }
+    }
+
+    /**
+     * Mark this machine as changed if the saved state of any component changed
+     * since the last call. Ticking machines should use this instead of calling
+     * {@link #setChanged()} unconditionally, so that idle machines don't force their
+     * chunk to be saved again on every autosave.
+     */
+    protected final void setChangedIfComponentsChanged() {
+        boolean changed = false;
+        for (IComponent component : icomponents) {
+            // Every component must be polled to reset its change tracking.
+            changed |= component.consumeUnsavedChanges();
+        }
+        if (changed) {
+            setChanged();
+        }
+    }
+
     /**
      * @return The inventory that will be synced with the client.
      */
@@ -193,20 +236,57 @@ public abstract class MachineBlockEntity extends FastBlockEntity
 
     public void sync(boolean forceRemesh) {
         syncCausesRemesh = syncCausesRemesh || forceRemesh;
+        syncPending = true;
         super.sync();
     }
 
+    /**
+     * Full client data, sent when a client starts tracking the chunk. The chunk is
+     * meshed after loading anyway, so no remesh is requested.
+     */
     @Override
     public CompoundTag getUpdateTag() {
         CompoundTag tag = new CompoundTag();
-        tag.putBoolean("remesh", syncCausesRemesh);
-        syncCausesRemesh = false;
+        tag.putBoolean("remesh", false);
         for (IComponent component : icomponents) {
             component.writeClientNbt(tag);
         }
         return tag;
     }
 
+    /**
+     * Client data for clients that already track this machine: only the components
+     * whose client data changed since the last delta update packet are included.
+     * This consumes the pending sync, so it must only be built for the scheduled
+     * broadcast.
+     *
+     * @return null if there is nothing to send.
+     */
+    @Nullable
+    private CompoundTag getDeltaUpdateTag() {
+        if (lastSyncedComponents == null) {
+            lastSyncedComponents = new CompoundTag[icomponents.size()];
+        }
+        CompoundTag tag = new CompoundTag();
+        BitSet changedComponents = new BitSet(icomponents.size());
+        for (int i = 0; i < icomponents.size(); ++i) {
+            CompoundTag componentTag = new CompoundTag();
+            icomponents.get(i).writeClientNbt(componentTag);
+            if (!componentTag.equals(lastSyncedComponents[i])) {
+                lastSyncedComponents[i] = componentTag;
+                tag.merge(componentTag);
+                changedComponents.set(i);
+            }
+        }
+        if (changedComponents.isEmpty() && !syncCausesRemesh) {
+            return null;
+        }
+        tag.putBoolean("remesh", syncCausesRemesh);
+        syncCausesRemesh = false;
+        tag.putLongArray("changedComponents", changedComponents.toLongArray());
+        return tag;
+    }
+
     @Override
     public final void saveAdditional(CompoundTag tag) {
         for (IComponent component : icomponents) {
@@ -222,8 +302,15 @@ public abstract class MachineBlockEntity extends FastBlockEntity
             }
         } else {
             boolean forceChunkRemesh = tag.getBoolean("remesh");
-            for (IComponent component : icomponents) {
-                component.readClientNbt(tag);
+            if (tag.contains("changedComponents")) {
+                BitSet changedComponents = BitSet.valueOf(tag.getLongArray("changedComponents"));
+                for (int i = changedComponents.nextSetBit(0); i >= 0; i = changedComponents.nextSetBit(i + 1)) {
+                    icomponents.get(i).readClientNbt(tag);
+                }
+            } else {
+                for (IComponent component : icomponents) {
+                    component.readClientNbt(tag);
+                }
             }
             if (forceChunkRemesh) {
                 WorldHelper.forceChunkRemesh(level, worldPosition);
@@ -239,7 +326,19 @@ public abstract class MachineBlockEntity extends FastBlockEntity
     @Nullable
     @Override
     public Packet<ClientGamePacketListener> getUpdatePacket() {
-        return ClientboundBlockEntityDataPacket.create(this);
+        if (syncPending) {
+            // The chunk broadcasts the changes requested by sync().
+            syncPending = false;
+            CompoundTag tag = getDeltaUpdateTag();
+            return tag == null ? null : ClientboundBlockEntityDataPacket.create(this, be -> tag);
+        } else {
+            // Any other caller (e.g. a packet resent to a single player) may be sending to a
+            // client that missed earlier deltas, so send everything. A previous call might also
+            // have consumed a remesh, so request one.
+            CompoundTag tag = getUpdateTag();
+            tag.putBoolean("remesh", true);
+            return ClientboundBlockEntityDataPacket.create(this, be -> tag);
+        }
     }
 
     public static void registerItemApi(BlockEntityType<?> bet) {
@@ -258,6 +357,18 @@ public abstract class MachineBlockEntity extends FastBlockEntity
         return List.of();
     }
 
+    void onNeighborChanged() {
+        neighborChanges++;
+    }
+
+    /**
+     * Return a counter that changes every time a neighbor of this machine changes,
+     * to invalidate cached results that depend on the adjacent blocks.
+     */
+    public int getNeighborChanges() {
+        return neighborChanges;
+    }
+
     protected boolean hasComparatorOutput() {
         return false;
     }
@@ -96,7 +96,7 @@ public abstract class AbstractCraftingMachineBlockEntity extends MachineBlockEnt
             if (orientation.extractFluids) {
                 inventory.inventory.autoExtractFluids(level, worldPosition, orientation.outputDirection);
             }
-            setChanged();
+            setChangedIfComponentsChanged();
         }
     }
 
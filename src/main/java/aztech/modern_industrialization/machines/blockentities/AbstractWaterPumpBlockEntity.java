@@ -51,6 +51,8 @@ public abstract class AbstractWaterPumpBlockEntity extends MachineBlockEntity im
         isActiveComponent = new IsActiveComponent();
         registerGuiComponent(new ProgressBar.Server(PROGRESS_BAR, () -> (float) pumpingTicks / OPERATION_TICKS));
         this.registerComponents(isActiveComponent, new IComponent() {
+            private int savedPumpingTicks;
+
             @Override
             public void writeNbt(CompoundTag tag) {
                 tag.putInt("pumpingTicks", pumpingTicks);
@@ -59,6 +61,14 @@ public abstract class AbstractWaterPumpBlockEntity extends MachineBlockEntity im
             @Override
             public void readNbt(CompoundTag tag) {
                 pumpingTicks = tag.getInt("pumpingTicks");
+                savedPumpingTicks = pumpingTicks;
+            }
+
+            @Override
+            public boolean consumeUnsavedChanges() {
+                boolean changed = pumpingTicks != savedPumpingTicks;
+                savedPumpingTicks = pumpingTicks;
+                return changed;
             }
         });
 
@@ -90,7 +100,7 @@ public abstract class AbstractWaterPumpBlockEntity extends MachineBlockEntity im
                 }
             }
             getInventory().autoExtractFluids(level, worldPosition, orientation.outputDirection);
-            setChanged();
+            setChangedIfComponentsChanged();
         }
     }
 
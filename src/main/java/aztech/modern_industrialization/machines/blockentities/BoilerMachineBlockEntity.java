@@ -118,7 +118,7 @@ public class BoilerMachineBlockEntity extends MachineBlockEntity implements Tick
 
         isActiveComponent.updateActive(fuelBurning.isBurning(), this);
 
-        setChanged();
+        setChangedIfComponentsChanged();
     }
 
     @Override
@@ -183,7 +183,7 @@ public class GeneratorMachineBlockEntity extends MachineBlockEntity implements T
 
         EnergyHelper.autoOuput(this, orientation, outputTier, extractable);
 
-        setChanged();
+        setChangedIfComponentsChanged();
     }
 
     @Override
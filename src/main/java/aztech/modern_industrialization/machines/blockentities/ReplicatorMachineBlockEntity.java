@@ -81,6 +81,8 @@ public class ReplicatorMachineBlockEntity extends MachineBlockEntity implements
                 fluidSlotPositions);
 
         this.registerComponents(isActiveComponent, inventoryComponent, new IComponent() {
+            private int savedProgressTick;
+
             @Override
             public void writeNbt(CompoundTag tag) {
                 tag.putInt("progressTick", progressTick);
@@ -89,6 +91,14 @@ public class ReplicatorMachineBlockEntity extends MachineBlockEntity implements
             @Override
             public void readNbt(CompoundTag tag) {
                 progressTick = tag.getInt("progressTick");
+                savedProgressTick = progressTick;
+            }
+
+            @Override
+            public boolean consumeUnsavedChanges() {
+                boolean changed = progressTick != savedProgressTick;
+                savedProgressTick = progressTick;
+                return changed;
             }
         });
 
@@ -168,7 +178,7 @@ public class ReplicatorMachineBlockEntity extends MachineBlockEntity implements
                 inventoryComponent.inventory.autoExtractItems(level, worldPosition, orientation.outputDirection);
             }
 
-            setChanged();
+            setChangedIfComponentsChanged();
         }
     }
 }
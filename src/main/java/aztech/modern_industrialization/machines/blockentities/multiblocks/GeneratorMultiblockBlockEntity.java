@@ -112,7 +112,7 @@ public class GeneratorMultiblockBlockEntity extends MultiblockMachineBlockEntity
                 insertEnergy(euProduced, Simulation.ACT);
                 isActiveComponent.updateActive(euProduced != 0, this);
             }
-            setChanged();
+            setChangedIfComponentsChanged();
         }
 
     }
@@ -150,14 +150,25 @@ public class LargeTankMultiblockBlockEntity extends MultiblockMachineBlockEntity
     private final ActiveShapeComponent activeShape;
     private final FluidStorageComponent fluidStorage;
 
-    private LargeTankFluidDisplay.Data oldFluidData;
+    /**
+     * Minimum number of ticks between two client syncs caused by fluid changes.
+     */
+    private static final int FLUID_SYNC_INTERVAL = 10;
+
+    /**
+     * Set when the fluid storage changed, for example because a hatch inserted or
+     * extracted fluid.
+     */
+    private boolean fluidChanged = true;
+    private boolean fluidSyncPending = false;
+    private long lastFluidSyncTick = -FLUID_SYNC_INTERVAL;
 
     public LargeTankMultiblockBlockEntity(BEP bep) {
 
         super(bep, new MachineGuiParameters.Builder("large_tank", false).build(), new OrientationComponent.Params(false, false, false));
 
         activeShape = new ActiveShapeComponent(shapeTemplates);
-        fluidStorage = new FluidStorageComponent();
+        fluidStorage = new FluidStorageComponent(() -> fluidChanged = true);
 
         this.registerComponents(activeShape, fluidStorage);
 
@@ -254,10 +265,17 @@ public class LargeTankMultiblockBlockEntity extends MultiblockMachineBlockEntity
     @Override
     public void tick() {
         if (!level.isClientSide) {
+            // Only does work if the shape listener fired
             link();
-            setChanged();
-            if (!this.getFluidData().equals(oldFluidData)) {
-                oldFluidData = this.getFluidData();
+
+            if (fluidChanged) {
+                fluidChanged = false;
+                setChangedIfComponentsChanged();
+                fluidSyncPending = true;
+            }
+            if (fluidSyncPending && level.getGameTime() - lastFluidSyncTick >= FLUID_SYNC_INTERVAL) {
+                fluidSyncPending = false;
+                lastFluidSyncTick = level.getGameTime();
                 sync(false);
             }
         }
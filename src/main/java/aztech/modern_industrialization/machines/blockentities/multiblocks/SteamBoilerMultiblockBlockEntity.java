@@ -135,7 +135,7 @@ public class SteamBoilerMultiblockBlockEntity extends MultiblockMachineBlockEnti
                 steamHeater.decreaseTemperature(1);
                 this.isActiveComponent.updateActive(false, this);
             }
-            setChanged();
+            setChangedIfComponentsChanged();
         }
     }
 
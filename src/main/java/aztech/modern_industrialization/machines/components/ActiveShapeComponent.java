@@ -67,4 +67,10 @@ public class ActiveShapeComponent implements IComponent {
     public void readNbt(CompoundTag tag) {
         activeShape = tag.getInt("activeShape");
     }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        // setShape() calls setChanged().
+        return false;
+    }
 }
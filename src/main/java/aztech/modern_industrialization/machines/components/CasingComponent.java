@@ -80,6 +80,12 @@ public class CasingComponent implements IComponent {
 
     }
 
+    @Override
+    public boolean consumeUnsavedChanges() {
+        // Casing changes call setChanged().
+        return false;
+    }
+
     @Override
     public void writeClientNbt(CompoundTag tag) {
         tag.putString("casing", tierCasing.name);
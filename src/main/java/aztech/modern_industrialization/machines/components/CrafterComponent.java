@@ -34,19 +34,20 @@ import aztech.modern_industrialization.machines.IComponent;
 import aztech.modern_industrialization.machines.MachineBlockEntity;
 import aztech.modern_industrialization.machines.recipe.MachineRecipe;
 import aztech.modern_industrialization.machines.recipe.MachineRecipeType;
+import aztech.modern_industrialization.machines.recipe.RecipeIndex;
 import aztech.modern_industrialization.machines.recipe.condition.MachineProcessCondition;
 import aztech.modern_industrialization.stats.PlayerStatistics;
+import aztech.modern_industrialization.stats.PlayerStatisticsAccumulator;
 import aztech.modern_industrialization.stats.PlayerStatisticsData;
 import aztech.modern_industrialization.util.Simulation;
 import com.google.common.base.Preconditions;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
 import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.minecraft.core.Direction;
 import net.minecraft.core.Registry;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceLocation;
@@ -54,7 +55,6 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.material.Fluid;
 import org.jetbrains.annotations.Nullable;
 
 public class CrafterComponent implements IComponent.ServerOnly {
@@ -64,6 +64,7 @@ public class CrafterComponent implements IComponent.ServerOnly {
         this.inventory = inventory;
         this.behavior = behavior;
         this.conditionContext = () -> blockEntity;
+        inventory.setChangeCallback(this::wakeUp);
     }
 
     public interface Inventory {
@@ -75,9 +76,49 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
         List<ConfigurableFluidStack> getFluidOutputs();
 
-        int hash();
+        /**
+         * Set the callback to run when the contents or configuration of a slot
+         * change, or when the slots themselves change.
+         */
+        void setChangeCallback(Runnable callback);
     }
 
+    /**
+     * Why the crafter is not trying to start a recipe. The crafter only searches
+     * for a recipe when it is awake, and goes back to sleep when no recipe could be
+     * started. It is woken up by inventory changes, recipe reloads and changes of
+     * the max recipe EU.
+     */
+    public enum SleepState {
+        AWAKE,
+        /**
+         * Not enough energy to start a recipe. This is checked every tick as it's
+         * cheap, and a recipe search is done once energy is available again.
+         */
+        NO_ENERGY,
+        /**
+         * No recipe matches the inputs.
+         */
+        NO_RECIPE,
+        /**
+         * A recipe matches the inputs, but its outputs don't fit.
+         */
+        OUTPUT_BLOCKED,
+        /**
+         * A recipe could be started, but its process conditions are not met. They
+         * can depend on anything, so the search is retried periodically.
+         */
+        CONDITIONS_NOT_MET;
+
+        private static final SleepState[] VALUES = values();
+
+        public static SleepState byId(int id) {
+            return id >= 0 && id < VALUES.length ? VALUES[id] : AWAKE;
+        }
+    }
+
+    private static final int CONDITIONS_RETRY_TICKS = 20;
+
     public interface Behavior {
         long consumeEu(long max, Simulation simulation);
 
@@ -116,6 +157,10 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
     private MachineRecipe activeRecipe = null;
     private ResourceLocation delayedActiveRecipe;
+    /**
+     * Reload generation of the recipes that {@link #activeRecipe} was taken from.
+     */
+    private int activeRecipeGeneration = -1;
 
     private long usedEnergy;
     private long recipeEnergy;
@@ -127,8 +172,29 @@ public class CrafterComponent implements IComponent.ServerOnly {
     private long previousBaseEu = -1;
     private long previousMaxEu = -1;
 
-    private int lastInvHash = 0;
-    private int lastForcedTick = 0;
+    private SleepState sleepState = SleepState.AWAKE;
+    private long sleepMaxRecipeEu;
+    private int sleepRecipeGeneration;
+    private int conditionsRetryTicks;
+
+    // State as of the last consumeUnsavedChanges() call
+    private ResourceLocation savedRecipeId;
+    private long savedUsedEnergy;
+    private long savedRecipeEnergy;
+    private long savedRecipeMaxEu;
+    private int savedEfficiencyTicks;
+    private int savedMaxEfficiencyTicks;
+
+    // Cached result of the conditions of the active recipe, see activeRecipeConditionsMatch()
+    @Nullable
+    private MachineRecipe conditionsRecipe = null;
+    private boolean conditionsResult;
+    private int conditionsNeighborChanges;
+    private Direction conditionsFacing;
+
+    private final RecipeIndex.Candidates recipeCandidates = new RecipeIndex.Candidates();
+    private final PlayerStatisticsAccumulator stats = new PlayerStatisticsAccumulator();
+    private final CrafterSimulation simulation = new CrafterSimulation();
 
     public float getProgress() {
         return (float) usedEnergy / recipeEnergy;
@@ -154,6 +220,41 @@ public class CrafterComponent implements IComponent.ServerOnly {
         return behavior;
     }
 
+    public SleepState getSleepState() {
+        return sleepState;
+    }
+
+    /**
+     * Make sure that the crafter will look for a recipe during its next tick.
+     */
+    public void wakeUp() {
+        sleepState = SleepState.AWAKE;
+    }
+
+    private void sleep(SleepState state) {
+        sleepState = state;
+        sleepMaxRecipeEu = behavior.getMaxRecipeEu();
+        sleepRecipeGeneration = MachineRecipeType.getReloadGeneration();
+        conditionsRetryTicks = CONDITIONS_RETRY_TICKS;
+    }
+
+    /**
+     * Check if the crafter should try to start a recipe this tick, waking it up if
+     * something relevant happened while it was asleep.
+     */
+    private boolean isAwake() {
+        if (sleepState == SleepState.AWAKE || sleepState == SleepState.NO_ENERGY) {
+            return true;
+        }
+        if (sleepState == SleepState.CONDITIONS_NOT_MET && --conditionsRetryTicks <= 0) {
+            wakeUp();
+        }
+        if (sleepMaxRecipeEu != behavior.getMaxRecipeEu() || sleepRecipeGeneration != MachineRecipeType.getReloadGeneration()) {
+            wakeUp();
+        }
+        return sleepState == SleepState.AWAKE;
+    }
+
     public void decreaseEfficiencyTicks() {
         efficiencyTicks = Math.max(efficiencyTicks - 1, 0);
         clearActiveRecipeIfPossible();
@@ -188,28 +289,26 @@ public class CrafterComponent implements IComponent.ServerOnly {
         // START RECIPE IF NECESSARY
         // usedEnergy == 0 means that no recipe is currently started
         boolean recipeStarted = false;
-        if (usedEnergy == 0) {
+        if (usedEnergy == 0 && isAwake()) {
             if (behavior.consumeEu(1, SIMULATE) == 1) {
                 recipeStarted = updateActiveRecipe();
+            } else {
+                sleep(SleepState.NO_ENERGY);
             }
         }
 
-        if (activeRecipe != null) {
-            lastForcedTick = 0;
-        }
-
         // PROCESS RECIPE TICK
         long eu = 0;
         boolean finishedRecipe = false; // whether the recipe finished this tick
         if (activeRecipe != null && (usedEnergy > 0 || recipeStarted)) {
             recipeMaxEu = getRecipeMaxEu(activeRecipe.eu, recipeEnergy, efficiencyTicks);
-            eu = activeRecipe.conditionsMatch(conditionContext) ? behavior.consumeEu(Math.min(recipeMaxEu, recipeEnergy - usedEnergy), ACT) : 0;
+            eu = activeRecipeConditionsMatch() ? behavior.consumeEu(Math.min(recipeMaxEu, recipeEnergy - usedEnergy), ACT) : 0;
             isActive = eu > 0;
             usedEnergy += eu;
 
             if (usedEnergy == recipeEnergy) {
-                putItemOutputs(activeRecipe, false, false);
-                putFluidOutputs(activeRecipe, false, false);
+                putItemOutputs(activeRecipe);
+                putFluidOutputs(activeRecipe);
                 clearLocks();
                 usedEnergy = 0;
                 finishedRecipe = true;
@@ -243,12 +342,45 @@ public class CrafterComponent implements IComponent.ServerOnly {
         // If the recipe is done, allow starting another one when the efficiency reaches zero
         clearActiveRecipeIfPossible();
 
+        if (stats.shouldFlush()) {
+            stats.flush(behavior.getStatsOrDummy());
+        }
+
         return isActive;
     }
 
+    @Override
+    public void onRemoved() {
+        // Don't lose the statistics buffered since the last flush.
+        if (!stats.isEmpty()) {
+            stats.flush(behavior.getStatsOrDummy());
+        }
+    }
+
+    /**
+     * Check the conditions of the active recipe, only evaluating them again if
+     * something they depend on might have changed.
+     */
+    private boolean activeRecipeConditionsMatch() {
+        if (!activeRecipe.canCacheConditions()) {
+            return activeRecipe.conditionsMatch(conditionContext);
+        }
+        MachineBlockEntity machine = conditionContext.getBlockEntity();
+        if (conditionsRecipe != activeRecipe || conditionsNeighborChanges != machine.getNeighborChanges()
+                || conditionsFacing != machine.orientation.facingDirection) {
+            conditionsRecipe = activeRecipe;
+            conditionsNeighborChanges = machine.getNeighborChanges();
+            conditionsFacing = machine.orientation.facingDirection;
+            conditionsResult = activeRecipe.conditionsMatch(conditionContext);
+        }
+        return conditionsResult;
+    }
+
     private void clearActiveRecipeIfPossible() {
-        if (efficiencyTicks == 0 && usedEnergy == 0) {
+        if (efficiencyTicks == 0 && usedEnergy == 0 && activeRecipe != null) {
             activeRecipe = null;
+            // Other recipes can be started now
+            wakeUp();
         }
     }
 
@@ -262,10 +394,10 @@ public class CrafterComponent implements IComponent.ServerOnly {
         loadDelayedActiveRecipe();
 
         if (activeRecipe != null) {
-            if (putItemOutputs(activeRecipe, true, false) && putFluidOutputs(activeRecipe, true, false)) {
+            if (canPutItemOutputs(activeRecipe, false) && canPutFluidOutputs(activeRecipe, false)) {
                 // Relock stacks
-                putItemOutputs(activeRecipe, true, true);
-                putFluidOutputs(activeRecipe, true, true);
+                canPutItemOutputs(activeRecipe, true);
+                canPutFluidOutputs(activeRecipe, true);
             } else {
                 return false;
             }
@@ -275,82 +407,110 @@ public class CrafterComponent implements IComponent.ServerOnly {
     }
 
     private void loadDelayedActiveRecipe() {
+        int generation = MachineRecipeType.getReloadGeneration();
+        if (activeRecipeGeneration != generation) {
+            if (activeRecipe == null) {
+                activeRecipeGeneration = generation;
+            } else if (usedEnergy == 0) {
+                // The recipes were reloaded: the active recipe might have been changed or removed, so look it up again.
+                // A craft in progress keeps its recipe until it finishes, since its inputs were consumed and its outputs
+                // locked for that recipe.
+                delayedActiveRecipe = activeRecipe.getId();
+                activeRecipe = null;
+                activeRecipeGeneration = generation;
+            }
+        }
+
         if (delayedActiveRecipe != null) {
-            activeRecipe = behavior.recipeType().getRecipe(behavior.getCrafterWorld(), delayedActiveRecipe);
+            MachineRecipe recipe = behavior.recipeType().getRecipe(behavior.getCrafterWorld(), delayedActiveRecipe);
             delayedActiveRecipe = null;
-            if (activeRecipe == null) { // If a recipe got removed, we need to reset the efficiency and the used energy
-                // to allow the machine to resume processing.
+            if (recipe != null) {
+                activeRecipe = recipe;
+            } else {
+                // The recipe was removed: reset the efficiency and the used energy to allow the machine to resume processing,
+                // release the outputs that were locked for the recipe, and look for another recipe.
+                activeRecipe = null;
                 efficiencyTicks = 0;
                 usedEnergy = 0;
+                clearLocks();
+                wakeUp();
             }
         }
     }
 
     private boolean updateActiveRecipe() {
+        if (efficiencyTicks > 0) {
+            SleepState result = tryUpdateActiveRecipe(activeRecipe);
+            if (result == SleepState.AWAKE) {
+                return true;
+            }
+            sleep(result);
+            return false;
+        }
         // Only then can we run the iteration over the recipes
-        for (MachineRecipe recipe : getRecipes()) {
-            if (behavior.banRecipe(recipe))
-                continue;
-            if (tryStartRecipe(recipe)) {
-                // Make sure we recalculate the max efficiency ticks if the recipe changes or if
-                // the efficiency has reached 0 (the latter is to recalculate the efficiency for
-                // 0.3.6 worlds without having to break and replace the machines)
-                if (activeRecipe != recipe || efficiencyTicks == 0) {
-                    maxEfficiencyTicks = getRecipeMaxEfficiencyTicks(recipe);
-                }
-                activeRecipe = recipe;
-                usedEnergy = 0;
-                recipeEnergy = recipe.getTotalEu();
-                recipeMaxEu = getRecipeMaxEu(recipe.eu, recipeEnergy, efficiencyTicks);
+        ServerLevel serverWorld = (ServerLevel) behavior.getCrafterWorld();
+        behavior.recipeType().getRecipeIndex(serverWorld).findCandidates(inventory.getItemInputs(), inventory.getFluidInputs(), recipeCandidates);
+        SleepState blockedState = SleepState.NO_RECIPE;
+        for (int i = 0; i < recipeCandidates.size(); ++i) {
+            SleepState result = tryUpdateActiveRecipe(recipeCandidates.get(i));
+            if (result == SleepState.AWAKE) {
                 return true;
             }
+            // Keep the most actionable reason, in the order of the enum
+            if (result.ordinal() > blockedState.ordinal()) {
+                blockedState = result;
+            }
         }
+        sleep(blockedState);
         return false;
     }
 
-    private Iterable<MachineRecipe> getRecipes() {
-        if (efficiencyTicks > 0) {
-            return Collections.singletonList(activeRecipe);
-        } else {
-            int currentHash = inventory.hash();
-            if (currentHash == lastInvHash) {
-                if (lastForcedTick == 0) {
-                    lastForcedTick = 100;
-                } else {
-                    --lastForcedTick;
-                    return Collections.emptyList();
-                }
-            } else {
-                lastInvHash = currentHash;
-            }
-
-            ServerLevel serverWorld = (ServerLevel) behavior.getCrafterWorld();
-            MachineRecipeType recipeType = behavior.recipeType();
-            List<MachineRecipe> recipes = new ArrayList<>(recipeType.getFluidOnlyRecipes(serverWorld));
-            for (ConfigurableItemStack stack : inventory.getItemInputs()) {
-                if (!stack.isEmpty()) {
-                    recipes.addAll(recipeType.getMatchingRecipes(serverWorld, stack.getResource().getItem()));
-                }
+    /**
+     * Try to start a recipe, and update the active recipe if that succeeded.
+     *
+     * @return {@link SleepState#AWAKE} if the recipe was started, or the reason it
+     *         could not be started.
+     */
+    private SleepState tryUpdateActiveRecipe(MachineRecipe recipe) {
+        if (behavior.banRecipe(recipe))
+            return SleepState.NO_RECIPE;
+        SleepState result = tryStartRecipe(recipe);
+        if (result == SleepState.AWAKE) {
+            // Make sure we recalculate the max efficiency ticks if the recipe changes or if
+            // the efficiency has reached 0 (the latter is to recalculate the efficiency for
+            // 0.3.6 worlds without having to break and replace the machines)
+            if (activeRecipe != recipe || efficiencyTicks == 0) {
+                maxEfficiencyTicks = getRecipeMaxEfficiencyTicks(recipe);
             }
-            return recipes;
+            activeRecipe = recipe;
+            usedEnergy = 0;
+            recipeEnergy = recipe.getTotalEu();
+            recipeMaxEu = getRecipeMaxEu(recipe.eu, recipeEnergy, efficiencyTicks);
         }
+        return result;
     }
 
     /**
-     * Try to start a recipe. Return true if success, false otherwise. If false,
-     * nothing was changed.
+     * Try to start a recipe. If it could not be started, nothing was changed.
+     *
+     * @return {@link SleepState#AWAKE} if the recipe was started, or the reason it
+     *         could not be started.
      */
-    private boolean tryStartRecipe(MachineRecipe recipe) {
-        if (takeItemInputs(recipe, true) && takeFluidInputs(recipe, true) && putItemOutputs(recipe, true, false)
-                && putFluidOutputs(recipe, true, false) && recipe.conditionsMatch(conditionContext)) {
-            takeItemInputs(recipe, false);
-            takeFluidInputs(recipe, false);
-            putItemOutputs(recipe, true, true);
-            putFluidOutputs(recipe, true, true);
-            return true;
-        } else {
-            return false;
+    private SleepState tryStartRecipe(MachineRecipe recipe) {
+        if (!canTakeItemInputs(recipe) || !canTakeFluidInputs(recipe)) {
+            return SleepState.NO_RECIPE;
+        }
+        if (!canPutItemOutputs(recipe, false) || !canPutFluidOutputs(recipe, false)) {
+            return SleepState.OUTPUT_BLOCKED;
+        }
+        if (!recipe.conditionsMatch(conditionContext)) {
+            return SleepState.CONDITIONS_NOT_MET;
         }
+        takeItemInputs(recipe);
+        takeFluidInputs(recipe);
+        canPutItemOutputs(recipe, true);
+        canPutFluidOutputs(recipe, true);
+        return SleepState.AWAKE;
     }
 
     public static double getEfficiencyOverclock(int efficiencyTicks) {
@@ -395,29 +555,49 @@ public class CrafterComponent implements IComponent.ServerOnly {
         }
         this.efficiencyTicks = tag.getInt("efficiencyTicks");
         this.maxEfficiencyTicks = tag.getInt("maxEfficiencyTicks");
+        // The state that was just loaded doesn't need to be saved again.
+        consumeUnsavedChanges();
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        ResourceLocation recipeId = activeRecipe != null ? activeRecipe.getId() : delayedActiveRecipe;
+        if (Objects.equals(recipeId, savedRecipeId) && usedEnergy == savedUsedEnergy && recipeEnergy == savedRecipeEnergy
+                && recipeMaxEu == savedRecipeMaxEu && efficiencyTicks == savedEfficiencyTicks && maxEfficiencyTicks == savedMaxEfficiencyTicks) {
+            return false;
+        }
+        savedRecipeId = recipeId;
+        savedUsedEnergy = usedEnergy;
+        savedRecipeEnergy = recipeEnergy;
+        savedRecipeMaxEu = recipeMaxEu;
+        savedEfficiencyTicks = efficiencyTicks;
+        savedMaxEfficiencyTicks = maxEfficiencyTicks;
+        return true;
     }
 
     /**
-     * cachedItemCounts must be correct when this function is called, and are
-     * guaranteed to be correct after this call
+     * Check if the item inputs of the recipe are available, using the simulation
+     * buffers.
      */
-    private boolean takeItemInputs(MachineRecipe recipe, boolean simulate) {
-        List<ConfigurableItemStack> baseList = inventory.getItemInputs();
-        List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
+    private boolean canTakeItemInputs(MachineRecipe recipe) {
+        return simulation.canTakeItemInputs(recipe, inventory.getItemInputs());
+    }
+
+    private void takeItemInputs(MachineRecipe recipe) {
+        List<ConfigurableItemStack> stacks = inventory.getItemInputs();
 
-        boolean ok = true;
         for (MachineRecipe.ItemInput input : recipe.itemInputs) {
-            if (!simulate && input.probability < 1) { // if we are not simulating, there is a chance we don't need to take this output
+            if (input.probability < 1) { // there is a chance we don't need to take this input
                 if (ThreadLocalRandom.current().nextFloat() >= input.probability) {
                     continue;
                 }
             }
             int remainingAmount = input.amount;
             for (ConfigurableItemStack stack : stacks) {
-                if (stack.getAmount() > 0 && input.matches(stack.getResource().toStack())) { // TODO: ItemStack creation slow?
+                if (stack.getAmount() > 0 && input.matches(stack.getResource())) {
                     int taken = Math.min((int) stack.getAmount(), remainingAmount);
-                    if (taken > 0 && !simulate) {
-                        behavior.getStatsOrDummy().addUsedItems(stack.getResource().getItem(), taken);
+                    if (taken > 0) {
+                        stats.addUsedItems(stack.getResource().getItem(), taken);
                     }
                     stack.decrement(taken);
                     remainingAmount -= taken;
@@ -425,30 +605,32 @@ public class CrafterComponent implements IComponent.ServerOnly {
                         break;
                 }
             }
-            if (remainingAmount > 0)
-                ok = false;
         }
+    }
 
-        return ok;
+    /**
+     * Check if the fluid inputs of the recipe are available, using the simulation
+     * buffers.
+     */
+    protected boolean canTakeFluidInputs(MachineRecipe recipe) {
+        return simulation.canTakeFluidInputs(recipe, inventory.getFluidInputs());
     }
 
-    protected boolean takeFluidInputs(MachineRecipe recipe, boolean simulate) {
-        List<ConfigurableFluidStack> baseList = inventory.getFluidInputs();
-        List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
+    protected void takeFluidInputs(MachineRecipe recipe) {
+        List<ConfigurableFluidStack> stacks = inventory.getFluidInputs();
 
-        boolean ok = true;
         for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
-            if (!simulate && input.probability < 1) { // if we are not simulating, there is a chance we don't need to take this output
+            if (input.probability < 1) { // there is a chance we don't need to take this input
                 if (ThreadLocalRandom.current().nextFloat() >= input.probability) {
                     continue;
                 }
             }
             long remainingAmount = input.amount;
             for (ConfigurableFluidStack stack : stacks) {
-                if (stack.getResource().equals(FluidVariant.of(input.fluid))) {
+                if (CrafterSimulation.isExactly(stack.getResource(), input.fluid)) {
                     long taken = Math.min(remainingAmount, stack.getAmount());
-                    if (taken > 0 && !simulate) {
-                        behavior.getStatsOrDummy().addUsedFluids(stack.getResource().getFluid(), taken);
+                    if (taken > 0) {
+                        stats.addUsedFluids(stack.getResource().getFluid(), taken);
                     }
                     stack.decrement(taken);
                     remainingAmount -= taken;
@@ -456,24 +638,27 @@ public class CrafterComponent implements IComponent.ServerOnly {
                         break;
                 }
             }
-            if (remainingAmount > 0)
-                ok = false;
         }
-        return ok;
     }
 
-    protected boolean putItemOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
-        List<ConfigurableItemStack> baseList = inventory.getItemOutputs();
-        List<ConfigurableItemStack> stacks = simulate ? ConfigurableItemStack.copyList(baseList) : baseList;
+    /**
+     * Check if the item outputs of the recipe fit, using the simulation buffers.
+     *
+     * @param toggleLock If true, machine lock the output slots that would be used.
+     */
+    protected boolean canPutItemOutputs(MachineRecipe recipe, boolean toggleLock) {
+        boolean ok = simulation.planItemOutputs(recipe, inventory.getItemOutputs());
+        if (toggleLock) {
+            simulation.applyItemLocks(inventory.getItemOutputs());
+        }
+        return ok;
+    }
 
-        List<Integer> locksToToggle = new ArrayList<>();
-        List<Item> lockItems = new ArrayList<>();
+    protected void putItemOutputs(MachineRecipe recipe) {
+        List<ConfigurableItemStack> stacks = inventory.getItemOutputs();
 
-        boolean ok = true;
         for (MachineRecipe.ItemOutput output : recipe.itemOutputs) {
             if (output.probability < 1) {
-                if (simulate)
-                    continue; // don't check output space for probabilistic recipes
                 float randFloat = ThreadLocalRandom.current().nextFloat();
                 if (randFloat > output.probability)
                     continue;
@@ -481,20 +666,19 @@ public class CrafterComponent implements IComponent.ServerOnly {
             int remainingAmount = output.amount;
             // Try to insert in non-empty stacks or locked first, then also allow insertion
             // in empty stacks.
-            for (int loopRun = 0; loopRun < 2; loopRun++) {
-                int stackId = 0;
+            for (int loopRun = 0; loopRun < 2 && remainingAmount > 0; loopRun++) {
                 for (ConfigurableItemStack stack : stacks) {
-                    stackId++;
                     ItemVariant key = stack.getResource();
                     if (key.getItem() == output.item || key.isBlank()) {
-                        // If simulating or chanced output, respect the adjusted capacity.
+                        // If chanced output, respect the adjusted capacity.
                         // If putting the output, don't respect the adjusted capacity in case it was
                         // reduced during the processing.
-                        int remainingCapacity = simulate || output.probability < 1 ? (int) stack.getRemainingCapacityFor(ItemVariant.of(output.item))
+                        int remainingCapacity = output.probability < 1 ? (int) stack.getRemainingCapacityFor(ItemVariant.of(output.item))
                                 : output.item.getMaxStackSize() - (int) stack.getAmount();
                         int ins = Math.min(remainingAmount, remainingCapacity);
                         if (key.isBlank()) {
-                            if ((stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1) && stack.isValid(new ItemStack(output.item))) {
+                            if (ins > 0 && (stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1)
+                                    && stack.isResourceAllowedByLock(output.item)) {
                                 stack.setAmount(ins);
                                 stack.setKey(ItemVariant.of(output.item));
                             } else {
@@ -505,42 +689,35 @@ public class CrafterComponent implements IComponent.ServerOnly {
                         }
                         remainingAmount -= ins;
                         if (ins > 0) {
-                            locksToToggle.add(stackId - 1);
-                            lockItems.add(output.item);
-                            if (!simulate) {
-                                behavior.getStatsOrDummy().addProducedItems(output.item, ins);
-                            }
+                            stats.addProducedItems(output.item, ins);
                         }
                         if (remainingAmount == 0)
                             break;
                     }
                 }
             }
-            if (remainingAmount > 0)
-                ok = false;
         }
+    }
 
+    /**
+     * Check if the fluid outputs of the recipe fit, using the simulation buffers.
+     *
+     * @param toggleLock If true, machine lock the output slots that would be used.
+     */
+    protected boolean canPutFluidOutputs(MachineRecipe recipe, boolean toggleLock) {
+        boolean ok = simulation.planFluidOutputs(recipe, inventory.getFluidOutputs(), behavior.getMaxFluidOutputs());
         if (toggleLock) {
-            for (int i = 0; i < locksToToggle.size(); i++) {
-                baseList.get(locksToToggle.get(i)).enableMachineLock(lockItems.get(i));
-            }
+            simulation.applyFluidLocks(inventory.getFluidOutputs());
         }
         return ok;
     }
 
-    protected boolean putFluidOutputs(MachineRecipe recipe, boolean simulate, boolean toggleLock) {
-        List<ConfigurableFluidStack> baseList = inventory.getFluidOutputs();
-        List<ConfigurableFluidStack> stacks = simulate ? ConfigurableFluidStack.copyList(baseList) : baseList;
+    protected void putFluidOutputs(MachineRecipe recipe) {
+        List<ConfigurableFluidStack> stacks = inventory.getFluidOutputs();
 
-        List<Integer> locksToToggle = new ArrayList<>();
-        List<Fluid> lockFluids = new ArrayList<>();
-
-        boolean ok = true;
         for (int i = 0; i < Math.min(recipe.fluidOutputs.size(), behavior.getMaxFluidOutputs()); ++i) {
             MachineRecipe.FluidOutput output = recipe.fluidOutputs.get(i);
             if (output.probability < 1) {
-                if (simulate)
-                    continue; // don't check output space for probabilistic recipes
                 float randFloat = ThreadLocalRandom.current().nextFloat();
                 if (randFloat > output.probability)
                     continue;
@@ -548,39 +725,20 @@ public class CrafterComponent implements IComponent.ServerOnly {
             // First, try to find a slot that contains the fluid. If we couldn't find one,
             // we insert in any stack
             outer: for (int tries = 0; tries < 2; ++tries) {
-                for (int j = 0; j < stacks.size(); j++) {
-                    ConfigurableFluidStack stack = stacks.get(j);
-                    FluidVariant outputKey = FluidVariant.of(output.fluid);
-                    if (stack.isResourceAllowedByLock(outputKey)
-                            && ((tries == 1 && stack.isResourceBlank()) || stack.getResource().equals(outputKey))) {
+                for (ConfigurableFluidStack stack : stacks) {
+                    if (stack.isResourceAllowedByLock(output.fluid)
+                            && ((tries == 1 && stack.isResourceBlank()) || CrafterSimulation.isExactly(stack.getResource(), output.fluid))) {
                         long inserted = Math.min(output.amount, stack.getRemainingSpace());
                         if (inserted > 0) {
-                            stack.setKey(outputKey);
+                            stack.setKey(FluidVariant.of(output.fluid));
                             stack.increment(inserted);
-                            locksToToggle.add(j);
-                            lockFluids.add(output.fluid);
-                            if (!simulate) {
-                                behavior.getStatsOrDummy().addProducedFluids(output.fluid, inserted);
-                            }
-                        }
-                        if (inserted < output.amount) {
-                            ok = false;
+                            stats.addProducedFluids(output.fluid, inserted);
                         }
                         break outer;
                     }
                 }
-                if (tries == 1) {
-                    ok = false;
-                }
-            }
-        }
-
-        if (toggleLock) {
-            for (int i = 0; i < locksToToggle.size(); i++) {
-                baseList.get(locksToToggle.get(i)).enableMachineLock(lockFluids.get(i));
             }
         }
-        return ok;
     }
 
     protected void clearLocks() {
@@ -596,11 +754,9 @@ public class CrafterComponent implements IComponent.ServerOnly {
 
     public void lockRecipe(ResourceLocation recipeId, net.minecraft.world.entity.player.Inventory inventory) {
         // Find MachineRecipe
-        Optional<MachineRecipe> optionalMachineRecipe = behavior.recipeType().getRecipes(behavior.getCrafterWorld()).stream()
-                .filter(recipe -> recipe.getId().equals(recipeId)).findFirst();
-        if (optionalMachineRecipe.isEmpty())
+        MachineRecipe recipe = behavior.recipeType().getRecipe(behavior.getCrafterWorld(), recipeId);
+        if (recipe == null)
             return;
-        MachineRecipe recipe = optionalMachineRecipe.get();
         // ITEM INPUTS
         outer: for (MachineRecipe.ItemInput input : recipe.itemInputs) {
             for (ConfigurableItemStack stack : this.inventory.getItemInputs()) {
@@ -0,0 +1,263 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.components;
+
+import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
+import aztech.modern_industrialization.inventory.ConfigurableItemStack;
+import aztech.modern_industrialization.machines.recipe.MachineRecipe;
+import java.util.Arrays;
+import java.util.List;
+import net.fabricmc.fabric.api.transfer.v1.fluid.FluidVariant;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.material.Fluid;
+
+/**
+ * Reusable scratch buffers used by a {@link CrafterComponent} to check whether a
+ * recipe can be processed, without copying the stacks of the machine.
+ *
+ * <p>
+ * Each check snapshots the amounts and keys of the relevant slots into
+ * primitive arrays and plans the recipe against them. The output checks also
+ * remember which slots would receive which resource, so that the machine locks
+ * can be applied afterwards. Once the buffers are large enough, nothing is
+ * allocated.
+ */
+final class CrafterSimulation {
+    private long[] amounts = new long[0];
+    private ItemVariant[] itemKeys = new ItemVariant[0];
+    private FluidVariant[] fluidKeys = new FluidVariant[0];
+
+    private int itemLockCount = 0;
+    private int[] itemLockSlots = new int[0];
+    private Item[] itemLockInstances = new Item[0];
+
+    private int fluidLockCount = 0;
+    private int[] fluidLockSlots = new int[0];
+    private Fluid[] fluidLockInstances = new Fluid[0];
+
+    boolean canTakeItemInputs(MachineRecipe recipe, List<ConfigurableItemStack> stacks) {
+        int size = stacks.size();
+        ensureSlotCapacity(size);
+        for (int i = 0; i < size; ++i) {
+            amounts[i] = stacks.get(i).getAmount();
+        }
+
+        for (MachineRecipe.ItemInput input : recipe.itemInputs) {
+            long remainingAmount = input.amount;
+            for (int i = 0; i < size && remainingAmount > 0; ++i) {
+                if (amounts[i] > 0 && input.matches(stacks.get(i).getResource())) {
+                    long taken = Math.min(amounts[i], remainingAmount);
+                    amounts[i] -= taken;
+                    remainingAmount -= taken;
+                }
+            }
+            if (remainingAmount > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean canTakeFluidInputs(MachineRecipe recipe, List<ConfigurableFluidStack> stacks) {
+        int size = stacks.size();
+        ensureSlotCapacity(size);
+        for (int i = 0; i < size; ++i) {
+            amounts[i] = stacks.get(i).getAmount();
+        }
+
+        for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
+            long remainingAmount = input.amount;
+            for (int i = 0; i < size && remainingAmount > 0; ++i) {
+                if (amounts[i] > 0 && isExactly(stacks.get(i).getResource(), input.fluid)) {
+                    long taken = Math.min(amounts[i], remainingAmount);
+                    amounts[i] -= taken;
+                    remainingAmount -= taken;
+                }
+            }
+            if (remainingAmount > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the non-probabilistic item outputs of the recipe fit, and remember
+     * the slots that they would use.
+     */
+    boolean planItemOutputs(MachineRecipe recipe, List<ConfigurableItemStack> stacks) {
+        int size = stacks.size();
+        ensureSlotCapacity(size);
+        for (int i = 0; i < size; ++i) {
+            ConfigurableItemStack stack = stacks.get(i);
+            amounts[i] = stack.getAmount();
+            itemKeys[i] = stack.getResource();
+        }
+        itemLockCount = 0;
+
+        boolean ok = true;
+        for (MachineRecipe.ItemOutput output : recipe.itemOutputs) {
+            if (output.probability < 1) {
+                continue; // don't check output space for probabilistic recipes
+            }
+            long remainingAmount = output.amount;
+            // Try to insert in non-empty stacks or locked first, then also allow insertion
+            // in empty stacks.
+            for (int loopRun = 0; loopRun < 2 && remainingAmount > 0; loopRun++) {
+                for (int i = 0; i < size && remainingAmount > 0; ++i) {
+                    ItemVariant key = itemKeys[i];
+                    if (key.getItem() != output.item && !key.isBlank()) {
+                        continue;
+                    }
+                    ConfigurableItemStack stack = stacks.get(i);
+                    long ins = Math.min(remainingAmount,
+                            Math.min(output.item.getMaxStackSize(), stack.getAdjustedCapacity()) - amounts[i]);
+                    if (key.isBlank()) {
+                        if (ins > 0 && (stack.isMachineLocked() || stack.isPlayerLocked() || loopRun == 1)
+                                && stack.isResourceAllowedByLock(output.item)) {
+                            amounts[i] = ins;
+                            itemKeys[i] = ItemVariant.of(output.item);
+                        } else {
+                            ins = 0;
+                        }
+                    } else {
+                        amounts[i] += ins;
+                    }
+                    if (ins > 0) {
+                        remainingAmount -= ins;
+                        addItemLock(i, output.item);
+                    }
+                }
+            }
+            if (remainingAmount > 0) {
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Check if the non-probabilistic fluid outputs of the recipe fit, and remember
+     * the slots that they would use.
+     */
+    boolean planFluidOutputs(MachineRecipe recipe, List<ConfigurableFluidStack> stacks, int maxFluidOutputs) {
+        int size = stacks.size();
+        ensureSlotCapacity(size);
+        for (int i = 0; i < size; ++i) {
+            ConfigurableFluidStack stack = stacks.get(i);
+            amounts[i] = stack.getAmount();
+            fluidKeys[i] = stack.getResource();
+        }
+        fluidLockCount = 0;
+
+        boolean ok = true;
+        for (int o = 0; o < Math.min(recipe.fluidOutputs.size(), maxFluidOutputs); ++o) {
+            MachineRecipe.FluidOutput output = recipe.fluidOutputs.get(o);
+            if (output.probability < 1) {
+                continue; // don't check output space for probabilistic recipes
+            }
+            // First, try to find a slot that contains the fluid. If we couldn't find one,
+            // we insert in any stack
+            boolean found = false;
+            outer: for (int tries = 0; tries < 2; ++tries) {
+                for (int i = 0; i < size; ++i) {
+                    ConfigurableFluidStack stack = stacks.get(i);
+                    FluidVariant key = fluidKeys[i];
+                    if (stack.isResourceAllowedByLock(output.fluid) && ((tries == 1 && key.isBlank()) || isExactly(key, output.fluid))) {
+                        long inserted = Math.min(output.amount, stack.getCapacity() - amounts[i]);
+                        if (inserted > 0) {
+                            fluidKeys[i] = FluidVariant.of(output.fluid);
+                            amounts[i] += inserted;
+                            addFluidLock(i, output.fluid);
+                        }
+                        if (inserted < output.amount) {
+                            ok = false;
+                        }
+                        found = true;
+                        break outer;
+                    }
+                }
+            }
+            if (!found) {
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Machine lock the slots used by the last call to
+     * {@link #planItemOutputs}.
+     */
+    void applyItemLocks(List<ConfigurableItemStack> stacks) {
+        for (int i = 0; i < itemLockCount; ++i) {
+            stacks.get(itemLockSlots[i]).enableMachineLock(itemLockInstances[i]);
+        }
+    }
+
+    /**
+     * Machine lock the slots used by the last call to
+     * {@link #planFluidOutputs}.
+     */
+    void applyFluidLocks(List<ConfigurableFluidStack> stacks) {
+        for (int i = 0; i < fluidLockCount; ++i) {
+            stacks.get(fluidLockSlots[i]).enableMachineLock(fluidLockInstances[i]);
+        }
+    }
+
+    static boolean isExactly(FluidVariant variant, Fluid fluid) {
+        return variant.isOf(fluid) && !variant.hasNbt();
+    }
+
+    private void ensureSlotCapacity(int size) {
+        if (amounts.length < size) {
+            amounts = new long[size];
+            itemKeys = new ItemVariant[size];
+            fluidKeys = new FluidVariant[size];
+        }
+    }
+
+    private void addItemLock(int slot, Item item) {
+        if (itemLockCount == itemLockSlots.length) {
+            int newSize = Math.max(4, 2 * itemLockCount);
+            itemLockSlots = Arrays.copyOf(itemLockSlots, newSize);
+            itemLockInstances = Arrays.copyOf(itemLockInstances, newSize);
+        }
+        itemLockSlots[itemLockCount] = slot;
+        itemLockInstances[itemLockCount] = item;
+        itemLockCount++;
+    }
+
+    private void addFluidLock(int slot, Fluid fluid) {
+        if (fluidLockCount == fluidLockSlots.length) {
+            int newSize = Math.max(4, 2 * fluidLockCount);
+            fluidLockSlots = Arrays.copyOf(fluidLockSlots, newSize);
+            fluidLockInstances = Arrays.copyOf(fluidLockInstances, newSize);
+        }
+        fluidLockSlots[fluidLockCount] = slot;
+        fluidLockInstances[fluidLockCount] = fluid;
+        fluidLockCount++;
+    }
+}
@@ -87,6 +87,12 @@ public class EnergyComponent implements IComponent.ServerOnly {
         setEu(tag.getLong("storedEu"), false);
     }
 
+    @Override
+    public boolean consumeUnsavedChanges() {
+        // Energy changes call setChanged().
+        return false;
+    }
+
     private void setEu(long eu, boolean update) {
         this.storedEu = Math.min(eu, capacity.get());
 
@@ -136,6 +142,11 @@ public class EnergyComponent implements IComponent.ServerOnly {
                 return inserted;
             }
 
+            @Override
+            public long getInsertLimit() {
+                return capacity.get() - getEu();
+            }
+
             @Override
             public long extract(long maxAmount, TransactionContext transaction) {
                 return 0;
@@ -174,6 +185,11 @@ public class EnergyComponent implements IComponent.ServerOnly {
                 return extracted;
             }
 
+            @Override
+            public long getExtractLimit() {
+                return getEu();
+            }
+
             @Override
             public boolean canConnect(CableTier cableTier) {
                 return canExtract.test(cableTier);
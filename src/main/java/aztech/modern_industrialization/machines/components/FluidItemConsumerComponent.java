@@ -48,6 +48,7 @@ import net.minecraft.world.level.material.Fluid;
 public class FluidItemConsumerComponent implements IComponent.ServerOnly {
 
     protected long euBuffer = 0;
+    private long savedEuBuffer = 0;
     /**
      * The maximum EU that can be produced by one production operation, to limit the
      * maximum conversion rate of the machine.
@@ -98,6 +99,14 @@ public class FluidItemConsumerComponent implements IComponent.ServerOnly {
     @Override
     public void readNbt(CompoundTag tag) {
         euBuffer = tag.getLong("euBuffer");
+        savedEuBuffer = euBuffer;
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        boolean changed = euBuffer != savedEuBuffer;
+        savedEuBuffer = euBuffer;
+        return changed;
     }
 
     public long getEuProduction(List<ConfigurableFluidStack> fluidInputs,
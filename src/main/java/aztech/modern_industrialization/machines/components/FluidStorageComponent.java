@@ -32,6 +32,15 @@ import net.minecraft.nbt.CompoundTag;
 public class FluidStorageComponent implements IComponent {
 
     private long capacity;
+    /**
+     * Called after the fluid or the capacity changed.
+     */
+    private final Runnable changeListener;
+
+    // State as of the last consumeUnsavedChanges() call
+    private FluidVariant savedFluid = FluidVariant.blank();
+    private long savedAmount;
+    private long savedCapacity;
 
     SingleVariantStorage<FluidVariant> singleStorageVariant = new SingleVariantStorage<FluidVariant>() {
         @Override
@@ -43,8 +52,22 @@ public class FluidStorageComponent implements IComponent {
         protected long getCapacity(FluidVariant variant) {
             return capacity;
         }
+
+        @Override
+        protected void onFinalCommit() {
+            changeListener.run();
+        }
     };
 
+    public FluidStorageComponent() {
+        this(() -> {
+        });
+    }
+
+    public FluidStorageComponent(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
     public SingleVariantStorage<FluidVariant> getFluidStorage() {
         return singleStorageVariant;
     }
@@ -55,8 +78,11 @@ public class FluidStorageComponent implements IComponent {
 
     public void setCapacity(long capacity) {
         Preconditions.checkArgument(capacity >= 0, "Fluid Capacity must be > 0");
-        this.capacity = capacity;
-        singleStorageVariant.amount = Math.min(singleStorageVariant.amount, capacity);
+        if (this.capacity != capacity) {
+            this.capacity = capacity;
+            singleStorageVariant.amount = Math.min(singleStorageVariant.amount, capacity);
+            changeListener.run();
+        }
     }
 
     public FluidVariant getFluid() {
@@ -79,5 +105,18 @@ public class FluidStorageComponent implements IComponent {
         singleStorageVariant.variant = FluidVariant.fromNbt(tag.getCompound("fluid"));
         singleStorageVariant.amount = tag.getLong("amount");
         capacity = tag.getLong("capacity");
+        // The state that was just loaded doesn't need to be saved again.
+        consumeUnsavedChanges();
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        if (singleStorageVariant.amount == savedAmount && capacity == savedCapacity && singleStorageVariant.variant.equals(savedFluid)) {
+            return false;
+        }
+        savedFluid = singleStorageVariant.variant;
+        savedAmount = singleStorageVariant.amount;
+        savedCapacity = capacity;
+        return true;
     }
 }
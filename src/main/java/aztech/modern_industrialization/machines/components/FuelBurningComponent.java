@@ -65,6 +65,7 @@ public class FuelBurningComponent implements IComponent {
      * Buffer of EU that was burnt already, and is awaiting to be turned into heat.
      */
     private long burningEuBuffer;
+    private long savedBurningEuBuffer;
 
     public FuelBurningComponent(TemperatureComponent temperature, long maxEuProduction, long euPerDegree, long burningEuMultiplier) {
         this.temperature = temperature;
@@ -155,6 +156,14 @@ public class FuelBurningComponent implements IComponent {
     @Override
     public void readNbt(CompoundTag tag) {
         burningEuBuffer = tag.getLong("burningEuBuffer");
+        savedBurningEuBuffer = burningEuBuffer;
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        boolean changed = burningEuBuffer != savedBurningEuBuffer;
+        savedBurningEuBuffer = burningEuBuffer;
+        return changed;
     }
 
     public List<Component> getTooltips() {
@@ -32,6 +32,7 @@ import aztech.modern_industrialization.machines.IComponent;
 import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.nbt.CompoundTag;
+import org.jetbrains.annotations.Nullable;
 
 public class MachineInventoryComponent implements CrafterComponent.Inventory, IComponent.ServerOnly {
     public final int itemInputCount;
@@ -41,11 +42,18 @@ public class MachineInventoryComponent implements CrafterComponent.Inventory, IC
 
     public final MIInventory inventory;
 
-    private int invHash = 0;
+    // Views over the inventory stacks, cached to avoid allocating sublists every tick
+    private final List<ConfigurableItemStack> itemInputs;
+    private final List<ConfigurableItemStack> itemOutputs;
+    private final List<ConfigurableFluidStack> fluidInputs;
+    private final List<ConfigurableFluidStack> fluidOutputs;
+
+    @Nullable
+    private Runnable changeCallback = null;
     private final ChangeListener listener = new ChangeListener() {
         @Override
         protected void onChange() {
-            invHash++;
+            notifyChanged();
         }
 
         @Override
@@ -71,31 +79,43 @@ public class MachineInventoryComponent implements CrafterComponent.Inventory, IC
 
         this.inventory = new MIInventory(itemStacks, fluidStacks, itemPositions, fluidPositions);
         this.inventory.addListener(listener, null);
+
+        // The stacks are replaced with set() when loading, so the views stay valid.
+        this.itemInputs = inventory.getItemStacks().subList(0, itemInputCount);
+        this.itemOutputs = inventory.getItemStacks().subList(itemInputCount, itemInputCount + itemOutputCount);
+        this.fluidInputs = inventory.getFluidStacks().subList(0, fluidInputCount);
+        this.fluidOutputs = inventory.getFluidStacks().subList(fluidInputCount, fluidInputCount + fluidOutputCount);
     }
 
     @Override
     public List<ConfigurableItemStack> getItemInputs() {
-        return inventory.getItemStacks().subList(0, itemInputCount);
+        return itemInputs;
     }
 
     @Override
     public List<ConfigurableItemStack> getItemOutputs() {
-        return inventory.getItemStacks().subList(itemInputCount, itemInputCount + itemOutputCount);
+        return itemOutputs;
     }
 
     @Override
     public List<ConfigurableFluidStack> getFluidInputs() {
-        return inventory.getFluidStacks().subList(0, fluidInputCount);
+        return fluidInputs;
     }
 
     @Override
     public List<ConfigurableFluidStack> getFluidOutputs() {
-        return inventory.getFluidStacks().subList(fluidInputCount, fluidInputCount + fluidOutputCount);
+        return fluidOutputs;
     }
 
     @Override
-    public int hash() {
-        return invHash;
+    public void setChangeCallback(Runnable callback) {
+        this.changeCallback = callback;
+    }
+
+    private void notifyChanged() {
+        if (changeCallback != null) {
+            changeCallback.run();
+        }
     }
 
     @Override
@@ -107,5 +127,11 @@ public class MachineInventoryComponent implements CrafterComponent.Inventory, IC
     public void readNbt(CompoundTag tag) {
         this.inventory.readNbt(tag);
         this.inventory.addListener(listener, null);
+        notifyChanged();
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        return inventory.consumeUnsavedChanges();
     }
 }
@@ -34,6 +34,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.function.BiConsumer;
 import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
+import org.jetbrains.annotations.Nullable;
 
 public class MultiblockInventoryComponent implements CrafterComponent.Inventory {
     private final List<ConfigurableItemStack> itemInputs = new ArrayList<>();
@@ -41,11 +42,12 @@ public class MultiblockInventoryComponent implements CrafterComponent.Inventory
     private final List<ConfigurableFluidStack> fluidInputs = new ArrayList<>();
     private final List<ConfigurableFluidStack> fluidOutputs = new ArrayList<>();
 
-    private int invHash = 0;
+    @Nullable
+    private Runnable changeCallback = null;
     private final ChangeListener listener = new ChangeListener() {
         @Override
         protected void onChange() {
-            invHash++;
+            notifyChanged();
         }
 
         @Override
@@ -63,8 +65,8 @@ public class MultiblockInventoryComponent implements CrafterComponent.Inventory
         rebuildList(sortedHatches, itemOutputs, HatchBlockEntity::appendItemOutputs);
         rebuildList(sortedHatches, fluidInputs, HatchBlockEntity::appendFluidInputs);
         rebuildList(sortedHatches, fluidOutputs, HatchBlockEntity::appendFluidOutputs);
-        // Update hash in case the slots have changed
-        invHash++;
+        // Notify in case the slots have changed
+        notifyChanged();
     }
 
     private <T, Stack extends AbstractConfigurableStack<T, ? extends TransferVariant<T>>> void rebuildList(
@@ -103,7 +105,13 @@ public class MultiblockInventoryComponent implements CrafterComponent.Inventory
     }
 
     @Override
-    public int hash() {
-        return invHash;
+    public void setChangeCallback(Runnable callback) {
+        this.changeCallback = callback;
+    }
+
+    private void notifyChanged() {
+        if (changeCallback != null) {
+            changeCallback.run();
+        }
     }
 }
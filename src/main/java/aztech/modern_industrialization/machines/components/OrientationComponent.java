@@ -55,6 +55,12 @@ public class OrientationComponent implements IComponent {
         extractFluids = tag.getBoolean("extractFluids");
     }
 
+    @Override
+    public boolean consumeUnsavedChanges() {
+        // Only changed by the wrench and the GUI, which call setChanged().
+        return false;
+    }
+
     public void writeNbt(CompoundTag tag) {
         tag.putInt("facingDirection", facingDirection.get3DDataValue());
         if (params.hasOutput) {
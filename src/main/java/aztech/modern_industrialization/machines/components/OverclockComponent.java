@@ -43,6 +43,7 @@ public class OverclockComponent implements IComponent {
     private final List<Catalyst> catalysts;
 
     private final NavigableMap<Double, MutableTickCount> tickMap = new TreeMap<>();
+    private boolean unsavedChanges = false;
 
     public OverclockComponent(List<Catalyst> catalysts) {
         this.catalysts = catalysts;
@@ -71,6 +72,13 @@ public class OverclockComponent implements IComponent {
         }
     }
 
+    @Override
+    public boolean consumeUnsavedChanges() {
+        boolean changed = unsavedChanges;
+        unsavedChanges = false;
+        return changed;
+    }
+
     public int getTicks() {
         var lastEntry = tickMap.lastEntry();
         if (lastEntry != null) {
@@ -112,6 +120,7 @@ public class OverclockComponent implements IComponent {
         if (lastEntry != null) {
             var overclockTicks = lastEntry.getValue();
             overclockTicks.value--;
+            unsavedChanges = true;
             if (overclockTicks.value <= 0) {
                 tickMap.remove(lastEntry.getKey());
             } else {
@@ -50,6 +50,12 @@ public class PlacedByComponent implements IComponent {
         }
     }
 
+    @Override
+    public boolean consumeUnsavedChanges() {
+        // Only set when the machine is placed.
+        return false;
+    }
+
     public void onPlaced(LivingEntity placer) {
         if (placer instanceof Player) {
             placerId = placer.getUUID();
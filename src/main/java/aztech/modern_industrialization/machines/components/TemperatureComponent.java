@@ -29,6 +29,7 @@ import net.minecraft.nbt.CompoundTag;
 public class TemperatureComponent implements IComponent {
 
     private double temperature;
+    private double savedTemperature;
     public final double temperatureMax;
 
     public TemperatureComponent(double temperatureMax) {
@@ -61,5 +62,13 @@ public class TemperatureComponent implements IComponent {
     @Override
     public void readNbt(CompoundTag tag) {
         setTemperature(tag.getDouble("temperature"));
+        savedTemperature = temperature;
+    }
+
+    @Override
+    public boolean consumeUnsavedChanges() {
+        boolean changed = temperature != savedTemperature;
+        savedTemperature = temperature;
+        return changed;
     }
 }
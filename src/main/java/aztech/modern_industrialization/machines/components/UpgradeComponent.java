@@ -86,6 +86,12 @@ public class UpgradeComponent implements IComponent.ServerOnly {
         itemStack = ItemStack.of(tag.getCompound("upgradesItemStack"));
     }
 
+    @Override
+    public boolean consumeUnsavedChanges() {
+        // Upgrade changes call setChanged().
+        return false;
+    }
+
     public InteractionResult onUse(MachineBlockEntity be, Player player, InteractionHand hand) {
         ItemStack stackInHand = player.getItemInHand(hand);
         if (stackInHand.isEmpty()) {
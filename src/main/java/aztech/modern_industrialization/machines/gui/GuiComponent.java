@@ -26,7 +26,6 @@ package aztech.modern_industrialization.machines.gui;
 import aztech.modern_industrialization.inventory.SlotGroup;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.util.Unit;
 import net.minecraft.world.inventory.Slot;
 
 public final class GuiComponent {
@@ -42,22 +41,11 @@ public final class GuiComponent {
     }
 
     /**
-     * Server part of a synced component.
-     * 
-     * @param <D> Synced data type.
+     * Server part of a synced component. The data written by
+     * {@link #writeCurrentData} is compared with the last data sent to each
+     * client, and only sent again if it changed.
      */
-    public interface Server<D> extends Common {
-        /**
-         * @return A copy of the current sync data.
-         */
-        D copyData();
-
-        /**
-         * @return Whether the cached data is outdated, meaning that a sync must be
-         *         performed.
-         */
-        boolean needsSync(D cachedData);
-
+    public interface Server extends Common {
         /**
          * Write the initial data to the packet byte buf, used only when the screen is
          * opened.
@@ -66,7 +54,8 @@ public final class GuiComponent {
 
         /**
          * Write the current data to the packet byte buf, used when syncing after the
-         * screen was opened.
+         * screen was opened. This is called every tick to detect changes, so the same
+         * state must always be written the same way.
          */
         void writeCurrentData(FriendlyByteBuf buf);
 
@@ -80,17 +69,7 @@ public final class GuiComponent {
     /**
      * Convenience override when no data needs to be synced.
      */
-    public interface ServerNoData extends Server<Unit> {
-        @Override
-        default Unit copyData() {
-            return Unit.INSTANCE;
-        }
-
-        @Override
-        default boolean needsSync(Unit cachedData) {
-            return false;
-        }
-
+    public interface ServerNoData extends Server {
         @Override
         default void writeCurrentData(FriendlyByteBuf buf) {
         }
@@ -25,8 +25,6 @@ package aztech.modern_industrialization.machines.gui;
 
 import aztech.modern_industrialization.machines.MachineBlockEntity;
 import aztech.modern_industrialization.machines.MachinePackets;
-import java.util.ArrayList;
-import java.util.List;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.core.BlockPos;
@@ -37,31 +35,47 @@ import net.minecraft.world.entity.player.Player;
 
 public class MachineMenuServer extends MachineMenuCommon {
     public final MachineBlockEntity blockEntity;
-    protected final List trackedData;
+    /**
+     * Last data sent to the client for each component, as written by
+     * {@link GuiComponent.Server#writeCurrentData}.
+     */
+    private final FriendlyByteBuf[] trackedData;
+    private final FriendlyByteBuf currentData = PacketByteBufs.create();
 
     public MachineMenuServer(int syncId, Inventory playerInventory, MachineBlockEntity blockEntity, MachineGuiParameters guiParams) {
         super(syncId, playerInventory, blockEntity.getInventory(), guiParams, blockEntity.guiComponents);
         this.blockEntity = blockEntity;
-        trackedData = new ArrayList<>();
-        for (GuiComponent.Server component : blockEntity.guiComponents) {
-            trackedData.add(component.copyData());
+        trackedData = new FriendlyByteBuf[blockEntity.guiComponents.size()];
+        for (int i = 0; i < trackedData.length; ++i) {
+            trackedData[i] = PacketByteBufs.create();
+            blockEntity.guiComponents.get(i).writeCurrentData(trackedData[i]);
         }
     }
 
     @Override
     public void broadcastChanges() {
         super.broadcastChanges();
-        for (int i = 0; i < blockEntity.guiComponents.size(); ++i) {
-            GuiComponent.Server component = blockEntity.guiComponents.get(i);
-            if (component.needsSync(trackedData.get(i))) {
-                FriendlyByteBuf buf = PacketByteBufs.create();
-                buf.writeInt(containerId);
-                buf.writeInt(i);
-                component.writeCurrentData(buf);
-                ServerPlayNetworking.send((ServerPlayer) playerInventory.player, MachinePackets.S2C.COMPONENT_SYNC, buf);
-                trackedData.set(i, component.copyData());
+        // All the changed components are sent in a single packet.
+        FriendlyByteBuf packet = null;
+        for (int i = 0; i < trackedData.length; ++i) {
+            currentData.clear();
+            blockEntity.guiComponents.get(i).writeCurrentData(currentData);
+            if (!currentData.equals(trackedData[i])) {
+                if (packet == null) {
+                    packet = PacketByteBufs.create();
+                    packet.writeInt(containerId);
+                }
+                packet.writeVarInt(i);
+                packet.writeVarInt(currentData.readableBytes());
+                packet.writeBytes(currentData, currentData.readerIndex(), currentData.readableBytes());
+
+                trackedData[i].clear();
+                trackedData[i].writeBytes(currentData, currentData.readerIndex(), currentData.readableBytes());
             }
         }
+        if (packet != null) {
+            ServerPlayNetworking.send((ServerPlayer) playerInventory.player, MachinePackets.S2C.COMPONENT_SYNC, packet);
+        }
     }
 
     @Override
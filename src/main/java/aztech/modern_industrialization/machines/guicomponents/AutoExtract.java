@@ -34,7 +34,7 @@ import net.minecraft.resources.ResourceLocation;
  * but the logic stays the same.
  */
 public class AutoExtract {
-    public static class Server implements GuiComponent.Server<Data> {
+    public static class Server implements GuiComponent.Server {
         private final OrientationComponent orientation;
         private final boolean displayAsInsert; // true for auto-insert
 
@@ -47,16 +47,6 @@ public class AutoExtract {
             this(orientation, false);
         }
 
-        @Override
-        public Data copyData() {
-            return new Data(orientation.extractItems, orientation.extractFluids);
-        }
-
-        @Override
-        public boolean needsSync(Data cachedData) {
-            return cachedData.extractItems != orientation.extractItems || cachedData.extractFluids != orientation.extractFluids;
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeBoolean(displayAsInsert);
@@ -80,14 +70,4 @@ public class AutoExtract {
             return orientation;
         }
     }
-
-    private static class Data {
-        public final boolean extractItems;
-        public final boolean extractFluids;
-
-        private Data(boolean extractItems, boolean extractFluids) {
-            this.extractItems = extractItems;
-            this.extractFluids = extractFluids;
-        }
-    }
 }
@@ -31,7 +31,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 
 public class CraftingMultiblockGui {
-    public static class Server implements GuiComponent.Server<Data> {
+    public static class Server implements GuiComponent.Server {
 
         private final CrafterComponent crafter;
         private final Supplier<Boolean> isShapeValid;
@@ -43,33 +43,6 @@ public class CraftingMultiblockGui {
             this.progressSupplier = progressSupplier;
         }
 
-        @Override
-        public Data copyData() {
-            if (isShapeValid.get()) {
-                if (crafter.hasActiveRecipe()) {
-                    return new Data(progressSupplier.get(), crafter.getEfficiencyTicks(), crafter.getMaxEfficiencyTicks(),
-                            crafter.getCurrentRecipeEu(), crafter.getBaseRecipeEu());
-                } else {
-                    return new Data(true);
-                }
-            } else {
-                return new Data();
-            }
-        }
-
-        @Override
-        public boolean needsSync(Data cachedData) {
-            boolean recipe = false;
-
-            if (crafter.hasActiveRecipe()) {
-                recipe = crafter.getCurrentRecipeEu() != cachedData.currentRecipeEu || crafter.getBaseRecipeEu() != cachedData.baseRecipeEu;
-            }
-            return cachedData.isShapeValid != isShapeValid.get() || cachedData.hasActiveRecipe != crafter.hasActiveRecipe()
-                    || cachedData.progress != progressSupplier.get() || crafter.getEfficiencyTicks() != cachedData.efficiencyTicks
-                    || crafter.getMaxEfficiencyTicks() != cachedData.maxEfficiencyTicks || recipe;
-
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             writeCurrentData(buf);
@@ -101,40 +74,6 @@ public class CraftingMultiblockGui {
         }
     }
 
-    private static class Data {
-        final boolean isShapeValid;
-        final boolean hasActiveRecipe;
-        final float progress;
-        final int efficiencyTicks;
-        final int maxEfficiencyTicks;
-        final long currentRecipeEu;
-        final long baseRecipeEu;
-
-        private Data() {
-            this(false);
-        }
-
-        private Data(boolean isShapeValid) {
-            this.isShapeValid = isShapeValid;
-            this.hasActiveRecipe = false;
-            this.efficiencyTicks = 0;
-            this.progress = 0;
-            this.maxEfficiencyTicks = 0;
-            this.currentRecipeEu = 0;
-            this.baseRecipeEu = 0;
-        }
-
-        private Data(float progress, int efficiencyTicks, int maxEfficiencyTicks, long currentRecipeEu, long baseRecipeEu) {
-            this.efficiencyTicks = efficiencyTicks;
-            this.progress = progress;
-            this.maxEfficiencyTicks = maxEfficiencyTicks;
-            this.isShapeValid = true;
-            this.hasActiveRecipe = true;
-            this.currentRecipeEu = currentRecipeEu;
-            this.baseRecipeEu = baseRecipeEu;
-        }
-    }
-
     public static final int X = 4;
     public static final int Y = 16;
     public static final int W = 166;
@@ -30,7 +30,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 
 public class EnergyBar {
-    public static class Server implements GuiComponent.Server<Data> {
+    public static class Server implements GuiComponent.Server {
         public final Parameters params;
         public final Supplier<Long> euSupplier, maxEuSupplier;
 
@@ -40,16 +40,6 @@ public class EnergyBar {
             this.maxEuSupplier = maxEuSupplier;
         }
 
-        @Override
-        public Data copyData() {
-            return new Data(euSupplier.get(), maxEuSupplier.get());
-        }
-
-        @Override
-        public boolean needsSync(Data cachedData) {
-            return cachedData.eu != euSupplier.get() || cachedData.maxEu != maxEuSupplier.get();
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeInt(params.renderX);
@@ -69,16 +59,6 @@ public class EnergyBar {
         }
     }
 
-    private static class Data {
-        final long eu;
-        final long maxEu;
-
-        Data(long eu, long maxEu) {
-            this.eu = eu;
-            this.maxEu = maxEu;
-        }
-    }
-
     public static class Parameters {
         public final int renderX, renderY;
 
@@ -31,7 +31,7 @@ import net.minecraft.resources.ResourceLocation;
 
 public class GunpowderOverclockGui {
 
-    public static class Server implements GuiComponent.Server<Integer> {
+    public static class Server implements GuiComponent.Server {
 
         public final Parameters params;
         public final Supplier<Integer> remTickSupplier;
@@ -41,16 +41,6 @@ public class GunpowderOverclockGui {
             this.remTickSupplier = remTickSupplier;
         }
 
-        @Override
-        public Integer copyData() {
-            return remTickSupplier.get();
-        }
-
-        @Override
-        public boolean needsSync(Integer cachedData) {
-            return !cachedData.equals(remTickSupplier.get());
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeInt(params.renderX);
@@ -32,7 +32,7 @@ import net.minecraft.resources.ResourceLocation;
 
 public class LargeTankFluidDisplay {
 
-    public static class Server implements GuiComponent.Server<Data> {
+    public static class Server implements GuiComponent.Server {
 
         public final Supplier<Data> fluidDataSupplier;
 
@@ -40,17 +40,6 @@ public class LargeTankFluidDisplay {
             this.fluidDataSupplier = fluidDataSupplier;
         }
 
-        @Override
-        public Data copyData() {
-            return fluidDataSupplier.get();
-        }
-
-        @Override
-        public boolean needsSync(Data cachedData) {
-            Data newFluidData = fluidDataSupplier.get();
-            return !cachedData.equals(newFluidData);
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             writeCurrentData(buf);
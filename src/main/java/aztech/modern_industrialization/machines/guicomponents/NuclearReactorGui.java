@@ -35,28 +35,7 @@ import net.minecraft.resources.ResourceLocation;
 
 public class NuclearReactorGui {
 
-    public record Server(Supplier<Data> dataSupplier) implements GuiComponent.Server<Data> {
-
-        @Override
-        public Data copyData() {
-            return dataSupplier.get();
-        }
-
-        @Override
-        public boolean needsSync(Data cachedData) {
-            Data data = copyData();
-            if (data.valid != cachedData.valid || data.gridSizeX != cachedData.gridSizeX || data.gridSizeY != cachedData.gridSizeY
-                    || data.euProduction != cachedData.euProduction || data.euFuelConsumption != cachedData.euFuelConsumption) {
-                return true;
-            } else {
-                for (int i = 0; i < data.gridSizeY * data.gridSizeX; i++) {
-                    if (INuclearTileData.areEquals(data.tilesData[i], cachedData.tilesData[i])) {
-                        return true;
-                    }
-                }
-            }
-            return false;
-        }
+    public record Server(Supplier<Data> dataSupplier) implements GuiComponent.Server {
 
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
@@ -65,7 +44,7 @@ public class NuclearReactorGui {
 
         @Override
         public void writeCurrentData(FriendlyByteBuf buf) {
-            Data data = copyData();
+            Data data = dataSupplier.get();
             buf.writeBoolean(data.valid);
             if (data.valid) {
                 buf.writeInt(data.gridSizeX);
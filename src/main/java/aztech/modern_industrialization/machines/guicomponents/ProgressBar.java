@@ -32,7 +32,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 
 public class ProgressBar {
-    public static class Server implements GuiComponent.Server<Float> {
+    public static class Server implements GuiComponent.Server {
         private final Parameters params;
         private final Supplier<Float> progressSupplier;
 
@@ -41,16 +41,6 @@ public class ProgressBar {
             this.progressSupplier = progressSupplier;
         }
 
-        @Override
-        public Float copyData() {
-            return progressSupplier.get();
-        }
-
-        @Override
-        public boolean needsSync(Float cachedData) {
-            return !cachedData.equals(progressSupplier.get());
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeInt(params.renderX);
@@ -30,7 +30,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 
 public class RecipeEfficiencyBar {
-    public static class Server implements GuiComponent.Server<Data> {
+    public static class Server implements GuiComponent.Server {
         private final Parameters params;
         private final CrafterComponent crafter;
 
@@ -39,27 +39,6 @@ public class RecipeEfficiencyBar {
             this.crafter = crafter;
         }
 
-        @Override
-        public Data copyData() {
-            if (crafter.hasActiveRecipe()) {
-                return new Data(crafter.getEfficiencyTicks(), crafter.getMaxEfficiencyTicks(), crafter.getCurrentRecipeEu(),
-                        crafter.getBaseRecipeEu(), crafter.getBehavior().getMaxRecipeEu());
-            } else {
-                return new Data();
-            }
-        }
-
-        @Override
-        public boolean needsSync(Data cachedData) {
-            if (!crafter.hasActiveRecipe()) {
-                return cachedData.hasActiveRecipe;
-            } else {
-                return crafter.getEfficiencyTicks() != cachedData.efficiencyTicks || crafter.getMaxEfficiencyTicks() != cachedData.maxEfficiencyTicks
-                        || crafter.getCurrentRecipeEu() != cachedData.currentRecipeEu || crafter.getBaseRecipeEu() != cachedData.baseRecipeEu
-                        || crafter.getBehavior().getMaxRecipeEu() != cachedData.maxRecipeEu;
-            }
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeInt(params.renderX);
@@ -87,33 +66,6 @@ public class RecipeEfficiencyBar {
         }
     }
 
-    private static class Data {
-        final boolean hasActiveRecipe;
-        final int efficiencyTicks;
-        final int maxEfficiencyTicks;
-        final long currentRecipeEu;
-        final long baseRecipeEu;
-        final long maxRecipeEu;
-
-        private Data() {
-            this.hasActiveRecipe = false;
-            this.efficiencyTicks = 0;
-            this.maxEfficiencyTicks = 0;
-            this.currentRecipeEu = 0;
-            this.baseRecipeEu = 0;
-            this.maxRecipeEu = 0;
-        }
-
-        private Data(int efficiencyTicks, int maxEfficiencyTicks, long currentRecipeEu, long baseRecipeEu, long maxRecipeEu) {
-            this.efficiencyTicks = efficiencyTicks;
-            this.maxEfficiencyTicks = maxEfficiencyTicks;
-            this.hasActiveRecipe = true;
-            this.currentRecipeEu = currentRecipeEu;
-            this.baseRecipeEu = baseRecipeEu;
-            this.maxRecipeEu = maxRecipeEu;
-        }
-    }
-
     public static class Parameters {
         public final int renderX, renderY;
 
@@ -36,7 +36,7 @@ public class ReiSlotLocking {
         void lockSlots(ResourceLocation recipeId, Inventory inventory);
     }
 
-    public static class Server implements GuiComponent.Server<Boolean> {
+    public static class Server implements GuiComponent.Server {
         public final SlotLockable slotLockable;
         public final Supplier<Boolean> allowLocking;
 
@@ -45,16 +45,6 @@ public class ReiSlotLocking {
             this.allowLocking = allowLocking;
         }
 
-        @Override
-        public Boolean copyData() {
-            return allowLocking.get();
-        }
-
-        @Override
-        public boolean needsSync(Boolean cachedData) {
-            return allowLocking.get() != cachedData;
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             writeCurrentData(buf);
@@ -27,7 +27,6 @@ import aztech.modern_industrialization.machines.GuiComponents;
 import aztech.modern_industrialization.machines.gui.GuiComponent;
 import com.google.common.base.Preconditions;
 import java.util.List;
-import java.util.stream.IntStream;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
@@ -51,7 +50,7 @@ public class ShapeSelection {
         }
     }
 
-    public static class Server implements GuiComponent.Server<int[]> {
+    public static class Server implements GuiComponent.Server {
         public final Behavior behavior;
         private final List<LineInfo> lines;
 
@@ -62,21 +61,6 @@ public class ShapeSelection {
             this.lines = List.of(lines);
         }
 
-        @Override
-        public int[] copyData() {
-            return IntStream.range(0, lines.size()).map(behavior::getCurrentIndex).toArray();
-        }
-
-        @Override
-        public boolean needsSync(int[] cachedData) {
-            for (int i = 0; i < lines.size(); ++i) {
-                if (cachedData[i] != behavior.getCurrentIndex(i)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeVarInt(lines.size());
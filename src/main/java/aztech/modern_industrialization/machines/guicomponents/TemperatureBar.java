@@ -30,7 +30,7 @@ import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceLocation;
 
 public class TemperatureBar {
-    public static class Server implements GuiComponent.Server<Integer> {
+    public static class Server implements GuiComponent.Server {
         private final Parameters params;
         private final Supplier<Integer> temperatureSupplier;
 
@@ -39,16 +39,6 @@ public class TemperatureBar {
             this.temperatureSupplier = temperatureSupplier;
         }
 
-        @Override
-        public Integer copyData() {
-            return temperatureSupplier.get();
-        }
-
-        @Override
-        public boolean needsSync(Integer cachedData) {
-            return !cachedData.equals(temperatureSupplier.get());
-        }
-
         @Override
         public void writeInitialData(FriendlyByteBuf buf) {
             buf.writeInt(params.renderX);
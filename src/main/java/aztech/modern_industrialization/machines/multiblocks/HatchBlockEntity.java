@@ -127,7 +127,7 @@ public abstract class HatchBlockEntity extends MachineBlockEntity implements Tic
         }
 
         tickTransfer();
-        setChanged();
+        setChangedIfComponentsChanged();
     }
 
     protected void tickTransfer() {
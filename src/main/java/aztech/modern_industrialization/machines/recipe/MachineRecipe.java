@@ -25,9 +25,12 @@ package aztech.modern_industrialization.machines.recipe;
 
 import aztech.modern_industrialization.machines.recipe.condition.MachineProcessCondition;
 import aztech.modern_industrialization.util.DefaultedListWrapper;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
 import net.minecraft.core.NonNullList;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.Container;
@@ -39,6 +42,7 @@ import net.minecraft.world.item.crafting.RecipeSerializer;
 import net.minecraft.world.item.crafting.RecipeType;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.material.Fluid;
+import org.jetbrains.annotations.Nullable;
 
 public class MachineRecipe implements Recipe<Container> {
     final ResourceLocation id;
@@ -120,6 +124,19 @@ public class MachineRecipe implements Recipe<Container> {
         return type;
     }
 
+    /**
+     * Return true if the result of {@link #conditionsMatch} can be cached, i.e. no
+     * condition has a {@link MachineProcessCondition.Dependency#CUSTOM} dependency.
+     */
+    public boolean canCacheConditions() {
+        for (var condition : conditions) {
+            if (condition.getDependency() == MachineProcessCondition.Dependency.CUSTOM) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean conditionsMatch(MachineProcessCondition.Context context) {
         for (var condition : conditions) {
             if (!condition.canProcessRecipe(context, this)) {
@@ -140,10 +157,35 @@ public class MachineRecipe implements Recipe<Container> {
             this.probability = probability;
         }
 
+        /**
+         * Lazily computed set of the items accepted by a vanilla ingredient, or null
+         * if the ingredient needs to be tested against a stack.
+         */
+        @Nullable
+        private Set<Item> inputItemSet;
+        private boolean inputItemSetComputed = false;
+
         public boolean matches(ItemStack otherStack) {
             return ingredient.test(otherStack);
         }
 
+        /**
+         * Check if a variant matches this input, without creating an ItemStack for
+         * plain vanilla ingredients.
+         */
+        public boolean matches(ItemVariant variant) {
+            if (!inputItemSetComputed) {
+                // Vanilla ingredients only compare items, other implementations might look at the NBT.
+                inputItemSet = ingredient.getClass() == Ingredient.class ? new ReferenceOpenHashSet<>(getInputItems()) : null;
+                inputItemSetComputed = true;
+            }
+            if (inputItemSet != null) {
+                return inputItemSet.contains(variant.getItem());
+            } else {
+                return ingredient.test(variant.toStack());
+            }
+        }
+
         public List<Item> getInputItems() {
             return Arrays.stream(ingredient.getItems()).map(ItemStack::getItem).distinct().collect(Collectors.toList());
         }
@@ -38,6 +38,7 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.GsonHelper;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.RecipeManager;
 import net.minecraft.world.item.crafting.RecipeSerializer;
 import net.minecraft.world.item.crafting.RecipeType;
 import net.minecraft.world.level.Level;
@@ -61,64 +62,95 @@ public class MachineRecipeType implements RecipeType<MachineRecipe>, RecipeSeria
         return getManagerRecipes(world);
     }
 
+    /**
+     * Get a recipe of this type by id, or null if there is no such recipe.
+     */
     @Nullable
     public MachineRecipe getRecipe(Level world, ResourceLocation id) {
-        return getRecipes(world).stream().filter(r -> r.getId().equals(id)).findFirst().orElse(null);
+        RecipeManager recipeManager = world.getRecipeManager();
+        if (recipesById == null || recipesByIdManager != recipeManager || recipesByIdGeneration != reloadGeneration) {
+            recipesByIdGeneration = reloadGeneration;
+            recipesByIdManager = recipeManager;
+            Map<ResourceLocation, MachineRecipe> recipes = new HashMap<>();
+            for (MachineRecipe recipe : getRecipes(world)) {
+                // Keep the first recipe with each id, like the previous linear search
+                recipes.putIfAbsent(recipe.getId(), recipe);
+            }
+            recipesById = recipes;
+        }
+        return recipesById.get(id);
     }
 
     /*
-     * Smart recipe system to avoid iterating over all available recipes. Every
-     * recipe can be accessed by the type of its first input, so we build a cache
-     * Item -> MachineRecipe. We also need to store recipes that have fluid inputs
-     * but no item inputs. This cache is updated every 20 seconds in case the
-     * recipes are sometimes reloaded. TODO: only rebuild when the recipes have been
-     * reloaded
+     * Smart recipe system to avoid iterating over all available recipes. The
+     * recipes are indexed by every item and fluid input, see RecipeIndex. The index
+     * is only rebuilt when the recipes are reloaded, which is detected using the
+     * reload generation and the identity of the recipe manager (a new one is
+     * created for every server reload).
      */
-    private final Map<Item, List<MachineRecipe>> recipeCache = new HashMap<>();
-    private final List<MachineRecipe> fluidOnlyRecipes = new ArrayList<>();
-    private long lastUpdate = 0;
-    private static final long UPDATE_INTERVAL = 20 * 1000; // 20 seconds
+    private static int reloadGeneration = 0;
+
+    @Nullable
+    private RecipeIndex recipeIndex = null;
+    @Nullable
+    private RecipeManager indexedRecipeManager = null;
+    private int indexedGeneration = -1;
 
     /**
-     * Update recipe cache if necessary
+     * Recipes by id, rebuilt under the same conditions as the recipe index.
      */
-    private void updateRecipeCache(ServerLevel world) {
-        long time = System.currentTimeMillis();
-        if (time - lastUpdate <= UPDATE_INTERVAL)
-            return;
-
-        // Update cache
-        lastUpdate = time;
-        recipeCache.clear();
-        fluidOnlyRecipes.clear();
-        for (MachineRecipe recipe : getRecipes(world)) {
-            if (recipe.itemInputs.size() == 0) {
-                if (recipe.fluidInputs.size() > 0) {
-                    fluidOnlyRecipes.add(recipe);
-                }
-            } else {
-                for (Item inputItem : recipe.itemInputs.get(0).getInputItems()) {
-                    recipeCache.putIfAbsent(inputItem, new ArrayList<>());
-                    recipeCache.get(inputItem).add(recipe);
-                }
-            }
+    @Nullable
+    private Map<ResourceLocation, MachineRecipe> recipesById = null;
+    @Nullable
+    private RecipeManager recipesByIdManager = null;
+    private int recipesByIdGeneration = -1;
+
+    /**
+     * Called when the recipes of a recipe manager are (re)loaded, to invalidate
+     * the recipe caches.
+     */
+    public static void onRecipesReloaded() {
+        reloadGeneration++;
+    }
+
+    /**
+     * Incremented every time the recipes are reloaded.
+     */
+    public static int getReloadGeneration() {
+        return reloadGeneration;
+    }
+
+    /**
+     * Get the recipe index, rebuilding it if the recipes were reloaded.
+     */
+    public RecipeIndex getRecipeIndex(ServerLevel world) {
+        RecipeManager recipeManager = world.getRecipeManager();
+        if (recipeIndex == null || indexedRecipeManager != recipeManager || indexedGeneration != reloadGeneration) {
+            indexedGeneration = reloadGeneration;
+            indexedRecipeManager = recipeManager;
+            recipeIndex = new RecipeIndex(getRecipes(world));
         }
+        return recipeIndex;
     }
 
     /**
-     * Get all recipes that are using some Item.
+     * Get all recipes that are using some Item as their first input.
+     *
+     * @deprecated Use {@link #getRecipeIndex} instead, which indexes every input.
      */
+    @Deprecated
     public Collection<MachineRecipe> getMatchingRecipes(ServerLevel world, Item input) {
-        updateRecipeCache(world);
-        return Collections.unmodifiableCollection(recipeCache.getOrDefault(input, Collections.emptyList()));
+        return Collections.unmodifiableCollection(getRecipeIndex(world).getRecipesWithFirstInput(input));
     }
 
     /**
      * Get all recipes that are not using any input item.
+     *
+     * @deprecated Use {@link #getRecipeIndex} instead, which indexes every input.
      */
+    @Deprecated
     public Collection<MachineRecipe> getFluidOnlyRecipes(ServerLevel world) {
-        updateRecipeCache(world);
-        return Collections.unmodifiableList(fluidOnlyRecipes);
+        return getRecipeIndex(world).getFluidOnlyRecipes();
     }
 
     private final ResourceLocation id;
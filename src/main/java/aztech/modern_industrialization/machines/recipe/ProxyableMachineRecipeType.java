@@ -27,7 +27,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.crafting.RecipeManager;
 import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A machine recipe type that allows adding proxies
@@ -37,17 +39,23 @@ public abstract class ProxyableMachineRecipeType extends MachineRecipeType {
         super(id);
     }
 
-    private long lastUpdate = 0;
-    private static final long UPDATE_INTERVAL = 20 * 1000;
+    private int lastGeneration = -1;
+    @Nullable
+    private RecipeManager lastRecipeManager = null;
     protected List<MachineRecipe> recipeList = new ArrayList<>();
 
     protected abstract void fillRecipeList(Level world);
 
+    /**
+     * The recipe list is only rebuilt when recipes are reloaded, or when it is
+     * requested for another recipe manager.
+     */
     @Override
     public Collection<MachineRecipe> getRecipes(Level world) {
-        long time = System.currentTimeMillis();
-        if (time - lastUpdate > UPDATE_INTERVAL) {
-            lastUpdate = time;
+        RecipeManager recipeManager = world.getRecipeManager();
+        if (lastGeneration != getReloadGeneration() || lastRecipeManager != recipeManager) {
+            lastGeneration = getReloadGeneration();
+            lastRecipeManager = recipeManager;
             recipeList.clear();
             fillRecipeList(world);
         }
@@ -0,0 +1,260 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.machines.recipe;
+
+import aztech.modern_industrialization.inventory.ConfigurableFluidStack;
+import aztech.modern_industrialization.inventory.ConfigurableItemStack;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.material.Fluid;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Index of the recipes of a {@link MachineRecipeType}, keyed on every item and
+ * fluid input. Built once per recipe reload.
+ *
+ * <p>
+ * Every input of a recipe is assigned a bit. Each item or fluid present in the
+ * machine sets the bits of the inputs it can satisfy, and a recipe is a
+ * candidate once all of its bits are set, i.e. the intersection over all of its
+ * inputs of the recipes that can use the machine contents. This is only a
+ * prefilter: the crafter still simulates the recipe before starting it.
+ */
+public final class RecipeIndex {
+    private static final int MAX_INPUT_BITS = 64;
+
+    private final MachineRecipe[] recipes;
+    /**
+     * Bits of each recipe that must be set for it to be a candidate.
+     */
+    private final long[] requiredBits;
+    /**
+     * Recipes that have no input that needs to be present, always candidates.
+     */
+    private final int[] unconditionalRecipes;
+    /**
+     * Packed entries: {@code recipeIndex << 6 | inputBit}.
+     */
+    private final Reference2ObjectMap<Item, int[]> itemEntries;
+    private final Reference2ObjectMap<Fluid, int[]> fluidEntries;
+    /**
+     * Recipes by the items of their first item input, and recipes without item
+     * inputs. Only used by the deprecated lookups of {@link MachineRecipeType},
+     * built on first use.
+     */
+    @Nullable
+    private Map<Item, List<MachineRecipe>> firstInputRecipes = null;
+    @Nullable
+    private List<MachineRecipe> fluidOnlyRecipes = null;
+
+    RecipeIndex(Collection<MachineRecipe> recipeCollection) {
+        this.recipes = recipeCollection.toArray(new MachineRecipe[0]);
+        this.requiredBits = new long[recipes.length];
+
+        Reference2ObjectMap<Item, IntArrayList> items = new Reference2ObjectOpenHashMap<>();
+        Reference2ObjectMap<Fluid, IntArrayList> fluids = new Reference2ObjectOpenHashMap<>();
+        IntArrayList unconditional = new IntArrayList();
+
+        for (int r = 0; r < recipes.length; ++r) {
+            MachineRecipe recipe = recipes[r];
+            int bit = 0;
+            for (MachineRecipe.ItemInput input : recipe.itemInputs) {
+                // Inputs with an amount of 0 are always satisfied, and inputs past the 64th are
+                // left to the simulation.
+                if (input.amount == 0 || bit >= MAX_INPUT_BITS) {
+                    continue;
+                }
+                int entry = r << 6 | bit;
+                for (Item item : input.getInputItems()) {
+                    items.computeIfAbsent(item, i -> new IntArrayList()).add(entry);
+                }
+                requiredBits[r] |= 1L << bit;
+                bit++;
+            }
+            for (MachineRecipe.FluidInput input : recipe.fluidInputs) {
+                if (input.amount == 0 || bit >= MAX_INPUT_BITS) {
+                    continue;
+                }
+                fluids.computeIfAbsent(input.fluid, f -> new IntArrayList()).add(r << 6 | bit);
+                requiredBits[r] |= 1L << bit;
+                bit++;
+            }
+            if (requiredBits[r] == 0) {
+                unconditional.add(r);
+            }
+        }
+
+        this.unconditionalRecipes = unconditional.toIntArray();
+        this.itemEntries = new Reference2ObjectOpenHashMap<>(items.size());
+        for (var entry : items.reference2ObjectEntrySet()) {
+            itemEntries.put(entry.getKey(), entry.getValue().toIntArray());
+        }
+        this.fluidEntries = new Reference2ObjectOpenHashMap<>(fluids.size());
+        for (var entry : fluids.reference2ObjectEntrySet()) {
+            fluidEntries.put(entry.getKey(), entry.getValue().toIntArray());
+        }
+    }
+
+    public int size() {
+        return recipes.length;
+    }
+
+    /**
+     * Get the recipes whose first item input accepts the given item.
+     */
+    public List<MachineRecipe> getRecipesWithFirstInput(Item item) {
+        buildFirstInputRecipes();
+        return firstInputRecipes.getOrDefault(item, Collections.emptyList());
+    }
+
+    /**
+     * Get the recipes that have fluid inputs but no item input.
+     */
+    public List<MachineRecipe> getFluidOnlyRecipes() {
+        buildFirstInputRecipes();
+        return fluidOnlyRecipes;
+    }
+
+    private void buildFirstInputRecipes() {
+        if (fluidOnlyRecipes != null) {
+            return;
+        }
+        Map<Item, List<MachineRecipe>> byFirstInput = new Reference2ObjectOpenHashMap<>();
+        List<MachineRecipe> fluidOnly = new ArrayList<>();
+        for (MachineRecipe recipe : recipes) {
+            if (recipe.itemInputs.size() == 0) {
+                if (recipe.fluidInputs.size() > 0) {
+                    fluidOnly.add(recipe);
+                }
+            } else {
+                for (Item inputItem : recipe.itemInputs.get(0).getInputItems()) {
+                    byFirstInput.computeIfAbsent(inputItem, i -> new ArrayList<>()).add(recipe);
+                }
+            }
+        }
+        firstInputRecipes = byFirstInput;
+        fluidOnlyRecipes = Collections.unmodifiableList(fluidOnly);
+    }
+
+    /**
+     * Fill {@code candidates} with the recipes that could be started with the
+     * contents of the given input slots, without duplicates and in recipe order.
+     * Does not allocate once the candidates have been used with this index.
+     */
+    public void findCandidates(List<ConfigurableItemStack> itemInputs, List<ConfigurableFluidStack> fluidInputs, Candidates candidates) {
+        candidates.reset(this);
+
+        for (int i = 0; i < itemInputs.size(); ++i) {
+            ConfigurableItemStack stack = itemInputs.get(i);
+            if (stack.getAmount() > 0) {
+                candidates.mark(itemEntries.get(stack.getResource().getItem()));
+            }
+        }
+        for (int i = 0; i < fluidInputs.size(); ++i) {
+            ConfigurableFluidStack stack = fluidInputs.get(i);
+            if (stack.getAmount() > 0) {
+                candidates.mark(fluidEntries.get(stack.getResource().getFluid()));
+            }
+        }
+
+        candidates.collect(unconditionalRecipes);
+    }
+
+    /**
+     * Reusable candidate buffer, meant to be kept by each crafter.
+     */
+    public static final class Candidates {
+        private RecipeIndex index;
+        private long[] foundBits = new long[0];
+        private int[] touched = new int[0];
+        private int touchedCount = 0;
+        private int[] result = new int[0];
+        private int resultCount = 0;
+
+        public int size() {
+            return resultCount;
+        }
+
+        public MachineRecipe get(int i) {
+            return index.recipes[result[i]];
+        }
+
+        public void clear() {
+            for (int i = 0; i < touchedCount; ++i) {
+                foundBits[touched[i]] = 0;
+            }
+            touchedCount = 0;
+            resultCount = 0;
+        }
+
+        private void reset(RecipeIndex newIndex) {
+            if (index != newIndex) {
+                index = newIndex;
+                int size = newIndex.recipes.length;
+                foundBits = new long[size];
+                touched = new int[size];
+                result = new int[size];
+                touchedCount = 0;
+                resultCount = 0;
+            } else {
+                clear();
+            }
+        }
+
+        private void mark(int[] entries) {
+            if (entries == null) {
+                return;
+            }
+            for (int entry : entries) {
+                int r = entry >>> 6;
+                if (foundBits[r] == 0) {
+                    touched[touchedCount++] = r;
+                }
+                foundBits[r] |= 1L << (entry & 63);
+            }
+        }
+
+        private void collect(int[] unconditionalRecipes) {
+            for (int i = 0; i < touchedCount; ++i) {
+                int r = touched[i];
+                if (foundBits[r] == index.requiredBits[r]) {
+                    result[resultCount++] = r;
+                }
+            }
+            for (int r : unconditionalRecipes) {
+                result[resultCount++] = r;
+            }
+            // Preserve the order of the recipe list, some recipe types rely on it for priority.
+            IntArrays.quickSort(result, 0, resultCount);
+        }
+    }
+}
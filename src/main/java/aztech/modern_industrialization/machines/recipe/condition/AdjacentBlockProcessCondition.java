@@ -60,6 +60,11 @@ public class AdjacentBlockProcessCondition implements MachineProcessCondition {
         return context.getLevel().getBlockState(checkPos).is(block);
     }
 
+    @Override
+    public Dependency getDependency() {
+        return Dependency.ADJACENT_BLOCK;
+    }
+
     @Override
     public void appendDescription(List<Component> list) {
         var text = switch (relativePosition) {
@@ -48,6 +48,11 @@ public class BiomeProcessCondition implements MachineProcessCondition {
         return entityBiome.is(biome);
     }
 
+    @Override
+    public Dependency getDependency() {
+        return Dependency.BIOME;
+    }
+
     @Override
     public void appendDescription(List<Component> list) {
         var loc = biome.location();
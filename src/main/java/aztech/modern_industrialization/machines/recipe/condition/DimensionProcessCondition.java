@@ -48,6 +48,11 @@ public class DimensionProcessCondition implements MachineProcessCondition {
         return context.getLevel().dimension() == dimension;
     }
 
+    @Override
+    public Dependency getDependency() {
+        return Dependency.DIMENSION;
+    }
+
     @Override
     public void appendDescription(List<Component> list) {
         var loc = dimension.location();
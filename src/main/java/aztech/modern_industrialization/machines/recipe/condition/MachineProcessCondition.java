@@ -34,6 +34,15 @@ import org.jetbrains.annotations.ApiStatus;
 public interface MachineProcessCondition {
     boolean canProcessRecipe(Context context, MachineRecipe recipe);
 
+    /**
+     * What the result of {@link #canProcessRecipe} depends on. Machines only
+     * evaluate conditions again when their dependency might have changed, unless it
+     * is {@link Dependency#CUSTOM}.
+     */
+    default Dependency getDependency() {
+        return Dependency.CUSTOM;
+    }
+
     void appendDescription(List<Component> list);
 
     Serializer<?> getSerializer();
@@ -45,6 +54,26 @@ public interface MachineProcessCondition {
         return obj;
     }
 
+    enum Dependency {
+        /**
+         * The dimension of the machine, which never changes.
+         */
+        DIMENSION,
+        /**
+         * The biome at the position of the machine.
+         */
+        BIOME,
+        /**
+         * A block next to the machine, relative to its orientation. Evaluated again
+         * when a neighbor of the machine changes or when the machine is rotated.
+         */
+        ADJACENT_BLOCK,
+        /**
+         * Anything else. Evaluated every tick.
+         */
+        CUSTOM,
+    }
+
     interface Context {
         MachineBlockEntity getBlockEntity();
 
@@ -38,9 +38,11 @@ public class MaterialProperty<T> {
     private static final Map<String, MaterialProperty<?>> PROPERTY_IDS = new HashMap<>();
     public static final Collection<MaterialProperty<?>> PROPERTIES = Collections.unmodifiableCollection(PROPERTY_IDS.values());
 
+    public final String id;
     public final T defaultValue;
 
     public MaterialProperty(String id, T defaultValue) {
+        this.id = id;
         this.defaultValue = defaultValue;
 
         if (PROPERTY_IDS.put(id, this) != null) {
@@ -23,20 +23,45 @@
  */
 package aztech.modern_industrialization.misc.runtime_datagen;
 
+import aztech.modern_industrialization.MIConfig;
 import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.materials.Material;
+import aztech.modern_industrialization.materials.MaterialRegistry;
+import aztech.modern_industrialization.materials.part.PartKeyProvider;
+import aztech.modern_industrialization.materials.property.MaterialProperty;
+import aztech.modern_industrialization.resource.ArchivePackResources;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import net.fabricmc.fabric.api.datagen.v1.FabricDataGenerator;
 import net.fabricmc.loader.api.FabricLoader;
+import net.fabricmc.loader.api.ModContainer;
+import org.jetbrains.annotations.Nullable;
 
 public class RuntimeDataGen {
+    /**
+     * Remembers the hash of the datagen inputs, and the files currently in
+     * generated_resources with their hashes.
+     */
+    private static final String STATE_FILE = "generated_resources.cache";
+    private static final String INPUTS_HASH_PREFIX = "inputs ";
+
     public static void run(Consumer<FabricDataGenerator> config) {
         try {
             runInner(config);
@@ -46,7 +71,8 @@ public class RuntimeDataGen {
     }
 
     private static void runInner(Consumer<FabricDataGenerator> config) throws Exception {
-        var miFolder = FabricLoader.getInstance().getGameDir().resolve("modern_industrialization");
+        var gameDir = FabricLoader.getInstance().getGameDir();
+        var miFolder = gameDir.resolve("modern_industrialization");
 
         // Create some relevant texture folders because I'm sure some people will forget it
         var datagenOverridesFolder = miFolder.resolve("extra_datagen_resources");
@@ -60,26 +86,34 @@ public class RuntimeDataGen {
                 .resolve("datagen_texture_overrides"));
 
         var dataOutput = miFolder.resolve("runtime_datagen");
+        var cleanedOutput = miFolder.resolve("generated_resources");
+        var stateFile = miFolder.resolve(STATE_FILE);
+        var modContainer = FabricLoader.getInstance().getModContainer(ModernIndustrialization.MOD_ID).get();
+
+        // Skip everything if nothing that datagen depends on has changed since the last run
+        String inputsHash = hashInputs(modContainer, datagenOverridesFolder, gameDir.resolve("kubejs").resolve("startup_scripts"));
+        var state = readState(stateFile);
+        if (state != null && inputsHash.equals(state.inputsHash) && Files.isDirectory(cleanedOutput)) {
+            ModernIndustrialization.LOGGER.info("Skipping MI runtime data generation, inputs are unchanged");
+            // The archive might not exist yet if it was just enabled
+            if (!MIConfig.getConfig().packGeneratedResources || !Files.exists(miFolder.resolve(RuntimeResourcesHelper.ARCHIVE_NAME))) {
+                updateArchive(miFolder, cleanedOutput, state.outputFiles.keySet());
+            }
+            return;
+        }
+        // Forget the inputs until the output is complete, in case datagen fails or is interrupted
+        Files.deleteIfExists(stateFile);
 
         ModernIndustrialization.LOGGER.info("Starting MI runtime data generation");
 
-        var modContainer = FabricLoader.getInstance().getModContainer(ModernIndustrialization.MOD_ID).get();
         var gen = new FabricDataGenerator(dataOutput, modContainer, true);
         config.accept(gen);
         gen.run();
 
         ModernIndustrialization.LOGGER.info("Starting MI runtime pack calculation");
 
-        var cleanedOutput = miFolder.resolve("generated_resources");
-        // Delete output folder first before copying, otherwise Windows will complain
-        // Code from https://stackoverflow.com/questions/35988192/java-nio-most-concise-recursive-directory-delete
-        if (Files.exists(cleanedOutput)) {
-            try (Stream<Path> walk = Files.walk(cleanedOutput)) {
-                walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
-            }
-        }
-
-        // Check caches to see which files need to be copied over
+        // Check caches to see which files differ from the jar
+        Map<String, String> changedFiles = new TreeMap<>();
         try (var cacheStream = Files.walk(dataOutput.resolve(".cache"), 1)) {
             cacheStream.forEach(cachePath -> {
                 if (Files.isDirectory(cachePath)) {
@@ -90,28 +124,202 @@ public class RuntimeDataGen {
                 var oldCache = readCache(modContainer.findPath(".cache/" + cachePath.getFileName()).get());
 
                 for (var newEntry : newCache.entrySet()) {
-                    var oldHash = oldCache.get(newEntry.getKey());
-
-                    if (newEntry.getValue().equals(oldHash)) {
-                        // File is unchanged, don't copy it
-                        continue;
-                    }
-
-                    // File is changed, copy it
-                    var newPath = cleanedOutput.resolve(newEntry.getKey());
-                    try {
-                        Files.createDirectories(newPath.getParent());
-                        Files.copy(dataOutput.resolve(newEntry.getKey()), newPath);
-                    } catch (IOException e) {
-                        ModernIndustrialization.LOGGER.error("Failed to copy file " + newEntry.getKey(), e);
+                    if (!newEntry.getValue().equals(oldCache.get(newEntry.getKey()))) {
+                        changedFiles.put(newEntry.getKey(), newEntry.getValue());
                     }
                 }
             });
         }
 
+        Map<String, String> outputFiles = updateOutput(dataOutput, cleanedOutput, state == null ? null : state.outputFiles, changedFiles);
+        updateArchive(miFolder, cleanedOutput, outputFiles.keySet());
+        writeState(stateFile, inputsHash, outputFiles);
+
         ModernIndustrialization.LOGGER.info("Successfully finished MI runtime data generation");
     }
 
+    /**
+     * Hash everything that can influence the output of runtime datagen.
+     */
+    private static String hashInputs(ModContainer modContainer, Path... inputFolders) throws IOException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(FabricLoader.getInstance().getEnvironmentType().name(), StandardCharsets.UTF_8);
+
+        // Mods, including MI itself and addons that register content
+        List<String> mods = new ArrayList<>();
+        for (var mod : FabricLoader.getInstance().getAllMods()) {
+            mods.add(mod.getMetadata().getId() + " " + mod.getMetadata().getVersion().getFriendlyString());
+        }
+        mods.sort(Comparator.naturalOrder());
+        mods.forEach(mod -> hasher.putString(mod, StandardCharsets.UTF_8));
+
+        // Jar caches, which change with the jar contents even if the version doesn't
+        var jarCacheFolder = modContainer.findPath(".cache");
+        if (jarCacheFolder.isPresent()) {
+            hashFolder(hasher, jarCacheFolder.get());
+        }
+
+        // Materials, including those added by KubeJS
+        for (Material material : new TreeMap<>(MaterialRegistry.getMaterials()).values()) {
+            hasher.putString(material.name, StandardCharsets.UTF_8);
+            List<MaterialProperty<?>> properties = new ArrayList<>(MaterialProperty.PROPERTIES);
+            properties.sort(Comparator.comparing(property -> property.id));
+            for (MaterialProperty<?> property : properties) {
+                hasher.putString(property.id, StandardCharsets.UTF_8);
+                hasher.putString(getStableKey(material.get(property)), StandardCharsets.UTF_8);
+            }
+            for (var part : new TreeMap<>(material.getParts()).values()) {
+                hasher.putString(part.key().key, StandardCharsets.UTF_8);
+                hasher.putString(part.getItemId(), StandardCharsets.UTF_8);
+            }
+        }
+
+        // KubeJS scripts and extra datagen resources
+        for (Path folder : inputFolders) {
+            if (Files.isDirectory(folder)) {
+                hashFolder(hasher, folder);
+            }
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Some property values don't override toString, so use a key that doesn't change between runs.
+     */
+    private static String getStableKey(Object propertyValue) {
+        if (propertyValue instanceof PartKeyProvider partKeyProvider) {
+            return partKeyProvider.key().key;
+        } else if (propertyValue instanceof Enum<?> enumValue) {
+            return enumValue.name();
+        } else {
+            return String.valueOf(propertyValue);
+        }
+    }
+
+    private static void hashFolder(Hasher hasher, Path folder) throws IOException {
+        try (Stream<Path> walk = Files.walk(folder)) {
+            for (Path path : walk.filter(Files::isRegularFile).sorted().toList()) {
+                hasher.putString(folder.relativize(path).toString(), StandardCharsets.UTF_8);
+                hasher.putBytes(Files.readAllBytes(path));
+            }
+        }
+    }
+
+    /**
+     * Update the output folder in place, only writing files whose hash changed.
+     *
+     * @param previousFiles The files that the output folder contains with their
+     *                      hashes, or null if unknown.
+     * @return The files that the output folder now contains, with their hashes.
+     */
+    private static Map<String, String> updateOutput(Path dataOutput, Path cleanedOutput, @Nullable Map<String, String> previousFiles,
+            Map<String, String> files) throws IOException {
+        if (previousFiles == null) {
+            // Unknown contents: delete the output folder first
+            // Code from https://stackoverflow.com/questions/35988192/java-nio-most-concise-recursive-directory-delete
+            if (Files.exists(cleanedOutput)) {
+                try (Stream<Path> walk = Files.walk(cleanedOutput)) {
+                    walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+            previousFiles = Map.of();
+        }
+
+        // Remove files that are not generated anymore
+        for (var previousFile : previousFiles.keySet()) {
+            if (!files.containsKey(previousFile)) {
+                Files.deleteIfExists(cleanedOutput.resolve(previousFile));
+            }
+        }
+
+        // Copy the changed files in parallel, each one is replaced atomically
+        Map<String, String> outputFiles = new ConcurrentHashMap<>();
+        Map<String, String> knownFiles = previousFiles;
+        files.entrySet().parallelStream().forEach(entry -> {
+            var newPath = cleanedOutput.resolve(entry.getKey());
+            if (entry.getValue().equals(knownFiles.get(entry.getKey())) && Files.exists(newPath)) {
+                outputFiles.put(entry.getKey(), entry.getValue());
+                return;
+            }
+            try {
+                Files.createDirectories(newPath.getParent());
+                var tmpPath = newPath.resolveSibling(newPath.getFileName() + ".tmp");
+                Files.copy(dataOutput.resolve(entry.getKey()), tmpPath, StandardCopyOption.REPLACE_EXISTING);
+                moveAtomically(tmpPath, newPath);
+                outputFiles.put(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                ModernIndustrialization.LOGGER.error("Failed to copy file " + entry.getKey(), e);
+            }
+        });
+        return new TreeMap<>(outputFiles);
+    }
+
+    /**
+     * Write the generated resources archive if it is enabled, or delete it
+     * otherwise.
+     */
+    private static void updateArchive(Path miFolder, Path cleanedOutput, Set<String> files) throws IOException {
+        var archive = miFolder.resolve(RuntimeResourcesHelper.ARCHIVE_NAME);
+        if (!MIConfig.getConfig().packGeneratedResources) {
+            Files.deleteIfExists(archive);
+            return;
+        }
+
+        List<String> paths = new ArrayList<>();
+        for (var file : files) {
+            // Archive paths always use / as the separator
+            paths.add(file.replace(File.separatorChar, '/'));
+        }
+        var tmpArchive = archive.resolveSibling(archive.getFileName() + ".tmp");
+        ArchivePackResources.write(tmpArchive, cleanedOutput, paths);
+        moveAtomically(tmpArchive, archive);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private record State(String inputsHash, Map<String, String> outputFiles) {
+    }
+
+    @Nullable
+    private static State readState(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (var reader = Files.newBufferedReader(path)) {
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(INPUTS_HASH_PREFIX)) {
+                return null;
+            }
+            Map<String, String> outputFiles = new HashMap<>();
+            reader.lines().forEach(line -> {
+                String[] parts = line.split(" ", 2);
+                outputFiles.put(parts[1], parts[0]);
+            });
+            return new State(header.substring(INPUTS_HASH_PREFIX.length()), outputFiles);
+        } catch (IOException e) {
+            ModernIndustrialization.LOGGER.warn("Failed to read runtime datagen state " + path, e);
+            return null;
+        }
+    }
+
+    private static void writeState(Path path, String inputsHash, Map<String, String> outputFiles) throws IOException {
+        var tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (var writer = Files.newBufferedWriter(tmpPath)) {
+            writer.write(INPUTS_HASH_PREFIX + inputsHash + "\n");
+            for (var entry : outputFiles.entrySet()) {
+                writer.write(entry.getValue() + " " + entry.getKey() + "\n");
+            }
+        }
+        moveAtomically(tmpPath, path);
+    }
+
     /**
      * Read cache, and return map from resource path to hash.
      */
@@ -23,7 +23,12 @@
  */
 package aztech.modern_industrialization.misc.runtime_datagen;
 
+import aztech.modern_industrialization.MIConfig;
+import aztech.modern_industrialization.ModernIndustrialization;
+import aztech.modern_industrialization.resource.ArchivePackResources;
 import aztech.modern_industrialization.resource.GeneratedFolderPackResources;
+import java.io.IOException;
+import java.nio.file.Files;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.server.packs.PackResources;
 import net.minecraft.server.packs.PackType;
@@ -31,8 +36,21 @@ import net.minecraft.server.packs.PackType;
 public class RuntimeResourcesHelper {
     public static final ThreadLocal<Object> IS_CREATING_SERVER_RELOAD_PACK = new ThreadLocal<>();
 
+    public static final String ARCHIVE_NAME = "generated_resources.mipack";
+
     public static PackResources createPack(PackType packType) {
-        var generatedDirectory = FabricLoader.getInstance().getGameDir().resolve("modern_industrialization/generated_resources");
+        var miFolder = FabricLoader.getInstance().getGameDir().resolve("modern_industrialization");
+
+        var archive = miFolder.resolve(ARCHIVE_NAME);
+        if (MIConfig.getConfig().packGeneratedResources && Files.exists(archive)) {
+            try {
+                return new ArchivePackResources(archive.toFile(), packType);
+            } catch (IOException ex) {
+                ModernIndustrialization.LOGGER.error("Failed to open generated resources archive, falling back to the folder", ex);
+            }
+        }
+
+        var generatedDirectory = miFolder.resolve("generated_resources");
         return new GeneratedFolderPackResources(generatedDirectory.toFile(), packType);
     }
 }
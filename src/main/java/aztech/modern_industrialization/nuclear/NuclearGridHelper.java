@@ -26,6 +26,7 @@ package aztech.modern_industrialization.nuclear;
 import static aztech.modern_industrialization.nuclear.NeutronFate.*;
 
 import aztech.modern_industrialization.machines.components.NuclearEfficiencyHistoryComponent;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.Random;
 import org.jetbrains.annotations.Nullable;
@@ -144,93 +145,115 @@ public class NuclearGridHelper {
         }
 
         // HEAT
+        simulateHeat(grid);
 
-        // Cache heat transfer coefficients
-        double heatTransferCoeff[][] = new double[grid.getSizeX()][grid.getSizeY()];
-        for (int i = 0; i < sizeX; ++i) {
-            for (int j = 0; j < sizeY; ++j) {
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
                 @Nullable
-                INuclearTile tile = grid.getNuclearTile(i, j);
-                if (tile != null) {
-                    heatTransferCoeff[i][j] = tile.getHeatTransferCoeff();
+                INuclearTile maybeTile = grid.getNuclearTile(i, j);
+
+                if (maybeTile != null) {
+                    maybeTile.nuclearTick(efficiencyHistory);
                 }
             }
         }
 
-        final int NUMERICAL_SUBSTEP = 10;
+        return hasFuel;
 
-        for (int substep = 0; substep < NUMERICAL_SUBSTEP; substep++) {
-            double[][] temperatureOut = new double[sizeX][sizeY];
-            double[][] temperatureDelta = new double[sizeX][sizeY];
-
-            for (int step = 0; step < 3; step++) {
-                // step 0: compute temperatureOut = dT * coeff
-                // step 1: compute temperatureDelta, clamping as necessary
-                // step 2: set temperature
-                for (int i = 0; i < sizeX; i++) {
-                    for (int j = 0; j < sizeY; j++) {
-                        @Nullable
-                        INuclearTile tile = grid.getNuclearTile(i, j);
-                        if (tile == null) {
-                            continue;
-                        }
+    }
 
-                        double temperatureA = tile.getTemperature();
-                        if (step == 2) {
-                            tile.setTemperature(temperatureA + temperatureDelta[i][j]);
-                        } else {
-                            double coeffA = heatTransferCoeff[i][j];
+    private static final int NUMERICAL_SUBSTEP = 10;
+
+    // Flat scratch arrays for the heat simulation, reused across ticks and reactors.
+    // The grid is padded with one empty cell on every side so that neighbours never need bounds checks.
+    private static double[] temperature = new double[0];
+    private static double[] heatTransferCoeff = new double[0];
+    private static double[] present = new double[0];
+    private static double[] temperatureOut = new double[0];
+    private static double[] outFraction = new double[0];
+    private static double[] temperatureDelta = new double[0];
+
+    /**
+     * Diffuse heat between the tiles. Temperatures and coefficients are read once
+     * from the tiles and written back once, and every pass is a plain loop over
+     * flat arrays. Empty cells have a temperature and a coefficient of 0, which
+     * makes heat flowing out of the reactor behave like a transfer to a tile at 0
+     * degrees without any branch.
+     */
+    private static void simulateHeat(NuclearGrid grid) {
+        int sizeX = grid.getSizeX();
+        int sizeY = grid.getSizeY();
+        int rowSize = sizeY + 2;
+        int cells = (sizeX + 2) * rowSize;
+        if (temperature.length < cells) {
+            temperature = new double[cells];
+            heatTransferCoeff = new double[cells];
+            present = new double[cells];
+            temperatureOut = new double[cells];
+            outFraction = new double[cells];
+            temperatureDelta = new double[cells];
+        }
+        double[] t = temperature, c = heatTransferCoeff, p = present, out = temperatureOut, frac = outFraction, delta = temperatureDelta;
+        Arrays.fill(t, 0, cells, 0);
+        Arrays.fill(c, 0, cells, 0);
+        Arrays.fill(p, 0, cells, 0);
 
-                            if (step == 1) {
-                                // clamp to avoid reaching < 0 temperatures
-                                temperatureDelta[i][j] -= Math.min(temperatureA, temperatureOut[i][j]);
-                            }
-                            for (int k = 0; k < 4; k++) {
-                                int i2 = i + dX[k];
-                                int j2 = j + dY[k];
-
-                                @Nullable
-                                INuclearTile secondTile = grid.getNuclearTile(i2, j2);
-
-                                if (secondTile != null) {
-                                    double temperatureB = secondTile.getTemperature();
-                                    double coeffB = heatTransferCoeff[i2][j2];
-                                    double coeffTransfer = 0.5 * (coeffA + coeffB) / NUMERICAL_SUBSTEP;
-                                    if (temperatureA > temperatureB) {
-                                        if (step == 0) {
-                                            temperatureOut[i][j] += (temperatureA - temperatureB) * coeffTransfer;
-                                        } else {
-                                            double frac = Math.min(1, temperatureA / temperatureOut[i][j]);
-                                            temperatureDelta[i2][j2] += frac * (temperatureA - temperatureB) * coeffTransfer;
-                                        }
-                                    }
-                                } else {
-                                    double temperatureB = 0;
-                                    double coeffTransfer = 0.5 * coeffA / NUMERICAL_SUBSTEP;
-                                    if (step == 0) {
-                                        temperatureOut[i][j] += (temperatureA - temperatureB) * coeffTransfer;
-                                    }
-                                }
-                            }
-                        }
-                    }
+        // Snapshot temperatures and heat transfer coefficients
+        for (int i = 0; i < sizeX; i++) {
+            for (int j = 0; j < sizeY; j++) {
+                @Nullable
+                INuclearTile tile = grid.getNuclearTile(i, j);
+                if (tile != null) {
+                    int index = (i + 1) * rowSize + j + 1;
+                    t[index] = tile.getTemperature();
+                    c[index] = tile.getHeatTransferCoeff();
+                    p[index] = 1;
                 }
             }
         }
 
+        // Only interior cells are updated, the padding stays at 0.
+        int first = rowSize + 1;
+        int last = cells - rowSize - 1;
+        double halfCoeff = 0.5 / NUMERICAL_SUBSTEP;
+
+        for (int substep = 0; substep < NUMERICAL_SUBSTEP; substep++) {
+            // step 0: compute temperatureOut = dT * coeff, and which fraction of it is actually available
+            for (int k = first; k < last; k++) {
+                double tA = t[k], cA = c[k];
+                double o = Math.max(tA - t[k + 1], 0) * (cA + c[k + 1])
+                        + Math.max(tA - t[k - 1], 0) * (cA + c[k - 1])
+                        + Math.max(tA - t[k + rowSize], 0) * (cA + c[k + rowSize])
+                        + Math.max(tA - t[k - rowSize], 0) * (cA + c[k - rowSize]);
+                o *= halfCoeff;
+                out[k] = o;
+                frac[k] = o > 0 ? Math.min(1, tA / o) : 0;
+            }
+            // step 1: compute temperatureDelta, clamping to avoid reaching < 0 temperatures
+            for (int k = first; k < last; k++) {
+                double tA = t[k], cA = c[k];
+                double in = frac[k + 1] * Math.max(t[k + 1] - tA, 0) * (cA + c[k + 1])
+                        + frac[k - 1] * Math.max(t[k - 1] - tA, 0) * (cA + c[k - 1])
+                        + frac[k + rowSize] * Math.max(t[k + rowSize] - tA, 0) * (cA + c[k + rowSize])
+                        + frac[k - rowSize] * Math.max(t[k - rowSize] - tA, 0) * (cA + c[k - rowSize]);
+                delta[k] = in * halfCoeff - Math.min(tA, out[k]);
+            }
+            // step 2: set temperature, keeping empty cells at 0
+            for (int k = first; k < last; k++) {
+                t[k] += delta[k] * p[k];
+            }
+        }
+
+        // Write temperatures back
         for (int i = 0; i < sizeX; i++) {
             for (int j = 0; j < sizeY; j++) {
                 @Nullable
-                INuclearTile maybeTile = grid.getNuclearTile(i, j);
-
-                if (maybeTile != null) {
-                    maybeTile.nuclearTick(efficiencyHistory);
+                INuclearTile tile = grid.getNuclearTile(i, j);
+                if (tile != null) {
+                    tile.setTemperature(t[(i + 1) * rowSize + j + 1]);
                 }
             }
         }
-
-        return hasFuel;
-
     }
 
 }
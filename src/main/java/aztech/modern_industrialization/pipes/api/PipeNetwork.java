@@ -23,6 +23,7 @@
  */
 package aztech.modern_industrialization.pipes.api;
 
+import it.unimi.dsi.fastutil.longs.*;
 import java.util.*;
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
@@ -38,8 +39,10 @@ public abstract class PipeNetwork {
     protected int id;
     public PipeNetworkManager manager;
     public PipeNetworkData data;
-    private final Map<BlockPos, PipeNetworkNode> nodes = new HashMap<>();
-    private final Map<Long, Map<BlockPos, PipeNetworkNode>> nodesByChunk = new HashMap<>();
+    // Positions are packed with BlockPos#asLong, chunks with ChunkPos#asLong.
+    private final Long2ObjectOpenHashMap<PipeNetworkNode> nodes = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<PipeNetworkNode> nodesView = Long2ObjectMaps.unmodifiable(nodes);
+    private final Long2ObjectOpenHashMap<LongSet> nodesByChunk = new Long2ObjectOpenHashMap<>();
     private final List<PosNode> tickingNodesCache = new ArrayList<>();
     boolean tickingCacheValid = false;
 
@@ -65,6 +68,15 @@ public abstract class PipeNetwork {
     public void tick(ServerLevel world) {
     }
 
+    /**
+     * Must be called when {@link #data} is changed in place, so that it is saved again.
+     */
+    public void markChanged() {
+        if (manager != null) {
+            manager.markNetworksChanged();
+        }
+    }
+
     /**
      * Allow merging networks when the player explicitly requests to do so. When
      * this function is called, it must return a new PipeNetworkData without
@@ -86,51 +98,75 @@ public abstract class PipeNetwork {
 
     @Nullable
     public PipeNetworkNode getNode(BlockPos pos) {
-        return this.nodes.get(pos);
+        return this.nodes.get(pos.asLong());
     }
 
     public void setNode(BlockPos pos, @Nullable PipeNetworkNode node) {
-        this.nodes.put(pos.immutable(), node);
+        long packedPos = pos.asLong();
+        this.nodes.put(packedPos, node);
+        if (node != null) {
+            node.packedPos = packedPos;
+        }
 
-        this.nodesByChunk.computeIfAbsent(ChunkPos.asLong(pos), p -> new HashMap<>()).put(pos.immutable(), node);
+        long chunk = ChunkPos.asLong(pos);
+        LongSet set = nodesByChunk.get(chunk);
+        if (set == null) {
+            set = new LongOpenHashSet();
+            nodesByChunk.put(chunk, set);
+        }
+        set.add(packedPos);
     }
 
     public void removeNode(BlockPos pos) {
-        this.nodes.remove(pos);
+        long packedPos = pos.asLong();
+        this.nodes.remove(packedPos);
 
         long chunk = ChunkPos.asLong(pos);
-        Map<BlockPos, PipeNetworkNode> map = nodesByChunk.get(chunk);
-        map.remove(pos);
-        if (map.size() == 0) {
+        LongSet set = nodesByChunk.get(chunk);
+        set.remove(packedPos);
+        if (set.isEmpty()) {
             nodesByChunk.remove(chunk);
         }
     }
 
-    public Map<BlockPos, PipeNetworkNode> getRawNodeMap() {
-        return Collections.unmodifiableMap(this.nodes);
+    /**
+     * @return An unmodifiable view of the nodes of this network, keyed by
+     *         {@link BlockPos#asLong}. Unloaded nodes are mapped to null.
+     */
+    public Long2ObjectMap<PipeNetworkNode> getRawNodeMap() {
+        return this.nodesView;
     }
 
     public Collection<PosNode> iterateTickingNodes() {
         if (!tickingCacheValid) {
             tickingNodesCache.clear();
-            for (var chunkEntry : this.nodesByChunk.entrySet()) {
+            for (var chunkEntry : Long2ObjectMaps.fastIterable(this.nodesByChunk)) {
                 // noinspection deprecation
-                if (manager.tickingChunks.contains(chunkEntry.getKey())) {
-                    for (var entry : chunkEntry.getValue().entrySet()) {
-                        var node = entry.getValue();
+                if (manager.tickingChunks.contains(chunkEntry.getLongKey())) {
+                    for (LongIterator it = chunkEntry.getValue().iterator(); it.hasNext();) {
+                        long pos = it.nextLong();
+                        var node = nodes.get(pos);
                         // no idea how the chunk can be ticking and the node null,
                         // but it happens on the aof5 public server apparently...
                         if (node != null) {
-                            tickingNodesCache.add(new PosNode(entry.getKey(), node));
+                            tickingNodesCache.add(new PosNode(BlockPos.of(pos), node));
                         }
                     }
                 }
             }
             tickingCacheValid = true;
+            onTickingNodesChanged();
         }
         return tickingNodesCache;
     }
 
+    /**
+     * Called when {@link #iterateTickingNodes} had to be recomputed, for example
+     * because a node was loaded or unloaded, or because the network changed.
+     */
+    protected void onTickingNodesChanged() {
+    }
+
     public static class PosNode {
         private final BlockPos pos;
         private final PipeNetworkNode node;
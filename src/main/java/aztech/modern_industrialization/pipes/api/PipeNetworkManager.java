@@ -24,14 +24,16 @@
 package aztech.modern_industrialization.pipes.api;
 
 import aztech.modern_industrialization.pipes.MIPipes;
-import aztech.modern_industrialization.util.NbtHelper;
 import aztech.modern_industrialization.util.WorldHelper;
 import com.google.common.base.Preconditions;
 import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import java.util.*;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
@@ -43,15 +45,47 @@ import org.jetbrains.annotations.Nullable;
 public class PipeNetworkManager {
     private static final boolean DEBUG_CHECKS = FabricLoader.getInstance().isDevelopmentEnvironment();
 
-    private final Map<BlockPos, PipeNetwork> networkByBlock = new HashMap<>();
-    private final Map<BlockPos, Set<Direction>> links = new HashMap<>();
+    private static final Direction[] DIRECTIONS = Direction.values();
+    /**
+     * Regions are 32x32 chunks, like vanilla region files.
+     */
+    private static final int REGION_SHIFT = 9;
+    /**
+     * Time that networks can spend on deferrable work in a single server tick,
+     * see {@link #runDeferrableWork}.
+     */
+    private static final long DEFERRABLE_WORK_BUDGET_NANOS = 2_000_000;
+    /**
+     * Deferrable work that was postponed for this many ticks runs even if the
+     * budget is exhausted.
+     */
+    private static final int MAX_DEFERRED_TICKS = 20;
+
+    // Shared by all the managers of all the worlds, so that the budget is per server tick.
+    private static int budgetServerTick = -1;
+    private static long budgetUsedNanos;
+
+    // Positions are packed with BlockPos#asLong, chunks with ChunkPos#asLong.
+    private final Long2ObjectOpenHashMap<PipeNetwork> networkByBlock = new Long2ObjectOpenHashMap<>();
+    // Links of every node, as a 6-bit mask indexed by Direction#get3DDataValue.
+    private final Long2ByteOpenHashMap links = new Long2ByteOpenHashMap();
     private final Set<PipeNetwork> networks = new HashSet<>();
+    // Networks whose deferrable work was postponed, in order, with the server tick when they were first postponed.
+    private final Object2IntLinkedOpenHashMap<PipeNetwork> deferredNetworks = new Object2IntLinkedOpenHashMap<>();
+    private final Set<PipeNetwork> tickedFirst = new ReferenceOpenHashSet<>();
     private int nextNetworkId = 0;
     private final PipeNetworkType type;
 
-    private final Map<Long, Set<BlockPos>> spannedChunks = new HashMap<>();
+    private final Long2ObjectOpenHashMap<LongSet> spannedChunks = new Long2ObjectOpenHashMap<>();
+    // All nodes, loaded or not, grouped by save region. See getRegion.
+    private final Long2ObjectOpenHashMap<LongSet> nodesByRegion = new Long2ObjectOpenHashMap<>();
+    private final LongSet changedRegions = new LongOpenHashSet();
+    private boolean networksChanged = false;
     protected LongSet tickingChunks = new LongOpenHashSet();
     protected LongSet lastTickingChunks = new LongOpenHashSet();
+    // Nodes whose saved data changed since the last tick, see PipeNetworkNode#markUnsaved.
+    final List<PipeNetworkNode> unsavedNodes = new ArrayList<>();
+    private final LongSet unsavedChunks = new LongOpenHashSet();
 
     public PipeNetworkManager(PipeNetworkType type) {
         this.type = type;
@@ -64,40 +98,105 @@ public class PipeNetworkManager {
         // Mark ticking chunks
         updateTickingChunks(world);
 
-        // Actual ticking
+        // Actual ticking, starting with the networks that postponed work, so that other networks can't keep using their budget.
+        if (!deferredNetworks.isEmpty()) {
+            for (PipeNetwork network : deferredNetworks.keySet().toArray(new PipeNetwork[0])) {
+                network.tick(world);
+                tickedFirst.add(network);
+            }
+        }
         for (PipeNetwork network : networks) {
-            network.tick(world);
-        }
-
-        // Mark pipes in ticking chunks as dirty.
-        for (long chunkPos : tickingChunks) {
-            int chunkX = ChunkPos.getX(chunkPos);
-            int chunkZ = ChunkPos.getZ(chunkPos);
-            var chunk = world.getChunk(chunkX, chunkZ, ChunkStatus.FULL, false);
-            if (chunk != null) {
-                chunk.setUnsaved(true);
-            } else {
-                // This is not supposed to happen.
-                var sb = new StringBuilder();
-                sb.append("MI pipes issue: ticking spanned chunk was not loaded anymore. Please report this.\n");
-                sb.append(" - Pipe type: ").append(type.getIdentifier()).append("\n");
-                sb.append(" - Chunk: %d,%d\n".formatted(chunkX, chunkZ));
-                sb.append(" - Blocks in chunk:\n");
-                for (var it = spannedChunks.get(chunkPos).stream().sorted().iterator(); it.hasNext();) {
-                    var pos = it.next();
-                    sb.append("   - Pos: %d %d %d\n".formatted(pos.getX(), pos.getY(), pos.getZ()));
-                    var network = networkByBlock.get(pos);
-                    var node = network == null ? "none" : network.getNode(pos) == null ? "not loaded" : "loaded";
-                    sb.append("   - Has network (should be true): %s\n".formatted(network != null));
-                    sb.append("   - Node status (should be loaded): %s\n".formatted(node));
+            if (!tickedFirst.contains(network)) {
+                network.tick(world);
+            }
+        }
+        tickedFirst.clear();
+
+        // Mark the chunks of the nodes that changed as dirty.
+        if (!unsavedNodes.isEmpty()) {
+            for (PipeNetworkNode node : unsavedNodes) {
+                node.unsaved = false;
+                unsavedChunks.add(ChunkPos.asLong(SectionPos.blockToSectionCoord(BlockPos.getX(node.packedPos)),
+                        SectionPos.blockToSectionCoord(BlockPos.getZ(node.packedPos))));
+            }
+            unsavedNodes.clear();
+
+            for (LongIterator it = unsavedChunks.iterator(); it.hasNext();) {
+                long chunkPos = it.nextLong();
+                int chunkX = ChunkPos.getX(chunkPos);
+                int chunkZ = ChunkPos.getZ(chunkPos);
+                var chunk = world.getChunk(chunkX, chunkZ, ChunkStatus.FULL, false);
+                if (chunk != null) {
+                    chunk.setUnsaved(true);
+                } else if (tickingChunks.contains(chunkPos)) {
+                    reportUnloadedTickingChunk(chunkPos);
                 }
-                throw new UnsupportedOperationException(sb.toString());
+            }
+            unsavedChunks.clear();
+        }
+    }
+
+    void markNetworksChanged() {
+        networksChanged = true;
+    }
+
+    private void reportUnloadedTickingChunk(long chunkPos) {
+        // This is not supposed to happen.
+        var sb = new StringBuilder();
+        sb.append("MI pipes issue: ticking spanned chunk was not loaded anymore. Please report this.\n");
+        sb.append(" - Pipe type: ").append(type.getIdentifier()).append("\n");
+        sb.append(" - Chunk: %d,%d\n".formatted(ChunkPos.getX(chunkPos), ChunkPos.getZ(chunkPos)));
+        sb.append(" - Blocks in chunk:\n");
+        long[] positions = spannedChunks.getOrDefault(chunkPos, LongSets.EMPTY_SET).toLongArray();
+        Arrays.sort(positions);
+        for (long packedPos : positions) {
+            var pos = BlockPos.of(packedPos);
+            sb.append("   - Pos: %d %d %d\n".formatted(pos.getX(), pos.getY(), pos.getZ()));
+            var network = networkByBlock.get(packedPos);
+            var node = network == null ? "none" : network.getNode(pos) == null ? "not loaded" : "loaded";
+            sb.append("   - Has network (should be true): %s\n".formatted(network != null));
+            sb.append("   - Node status (should be loaded): %s\n".formatted(node));
+        }
+        throw new UnsupportedOperationException(sb.toString());
+    }
+
+    /**
+     * Run some work of a network that it can postpone to the next tick, for example
+     * a periodic transfer, if the deferrable work budget of the server tick allows
+     * it. This allows spreading heavy networks over multiple ticks instead of doing
+     * all their work in the same tick.
+     *
+     * <p>
+     * Only the time spent in deferrable work counts towards the budget. Networks
+     * that postponed work are ticked first on the next tick, and work that was
+     * postponed for {@link #MAX_DEFERRED_TICKS} ticks always runs, so that every
+     * network eventually runs.
+     *
+     * @return True if the work was done, false if it should be retried next tick.
+     */
+    public boolean runDeferrableWork(ServerLevel world, PipeNetwork network, Runnable work) {
+        int serverTick = world.getServer().getTickCount();
+        if (serverTick != budgetServerTick) {
+            budgetServerTick = serverTick;
+            budgetUsedNanos = 0;
+        }
+        if (budgetUsedNanos >= DEFERRABLE_WORK_BUDGET_NANOS) {
+            int deferredSince = deferredNetworks.getOrDefault(network, serverTick);
+            if (serverTick - deferredSince < MAX_DEFERRED_TICKS) {
+                deferredNetworks.putIfAbsent(network, deferredSince);
+                return false;
             }
         }
+        deferredNetworks.removeInt(network);
+
+        long start = System.nanoTime();
+        work.run();
+        budgetUsedNanos += System.nanoTime() - start;
+        return true;
     }
 
     public boolean hasNode(BlockPos pos) {
-        return networkByBlock.containsKey(pos);
+        return networkByBlock.containsKey(pos.asLong());
     }
 
     private void updateTickingChunks(ServerLevel world) {
@@ -106,8 +205,8 @@ public class PipeNetworkManager {
         lastTickingChunks = tmp;
         Preconditions.checkState(tickingChunks.isEmpty(), "Internal pipe network error.");
 
-        for (Map.Entry<Long, Set<BlockPos>> entry : spannedChunks.entrySet()) {
-            long chunk = entry.getKey();
+        for (var entry : Long2ObjectMaps.fastIterable(spannedChunks)) {
+            long chunk = entry.getLongKey();
             if (WorldHelper.isChunkTicking(world, chunk)) {
                 tickingChunks.add(chunk);
 
@@ -118,16 +217,16 @@ public class PipeNetworkManager {
             }
         }
         // Chunk that isn't ticking anymore
-        for (Long notTickingChunk : lastTickingChunks) {
-            notifyTickingChanged(spannedChunks.get(notTickingChunk));
+        for (LongIterator it = lastTickingChunks.iterator(); it.hasNext();) {
+            notifyTickingChanged(spannedChunks.get(it.nextLong()));
         }
         lastTickingChunks.clear();
     }
 
-    private void notifyTickingChanged(@Nullable Set<BlockPos> positionsInChunk) {
+    private void notifyTickingChanged(@Nullable LongSet positionsInChunk) {
         if (positionsInChunk != null) {
-            for (BlockPos pos : positionsInChunk) {
-                PipeNetwork network = networkByBlock.get(pos);
+            for (LongIterator it = positionsInChunk.iterator(); it.hasNext();) {
+                PipeNetwork network = networkByBlock.get(it.nextLong());
                 network.tickingCacheValid = false;
             }
         }
@@ -144,33 +243,36 @@ public class PipeNetworkManager {
             return;
 
         // Add links
-        BlockPos otherPos = pos.relative(direction);
-        links.get(pos).add(direction);
-        links.get(otherPos).add(direction.getOpposite());
-
-        // If the networks are different, we merge all nodes into `network`. We don't
-        // change other links.
-        PipeNetwork network = networkByBlock.get(pos);
+        long packedPos = pos.asLong();
+        long otherPos = BlockPos.offset(packedPos, direction);
+        links.put(packedPos, (byte) (links.get(packedPos) | directionBit(direction)));
+        links.put(otherPos, (byte) (links.get(otherPos) | directionBit(direction.getOpposite())));
+        changedRegions.add(getRegion(packedPos));
+        changedRegions.add(getRegion(otherPos));
+
+        // If the networks are different, we merge all nodes of the smaller network into
+        // the larger one, so that a node changes networks at most O(log n) times. We
+        // don't change other links.
+        PipeNetwork network = networkByBlock.get(packedPos);
         PipeNetwork otherNetwork = networkByBlock.get(otherPos);
         if (network != otherNetwork) {
+            if (network.getRawNodeMap().size() < otherNetwork.getRawNodeMap().size()) {
+                PipeNetwork tmp = network;
+                network = otherNetwork;
+                otherNetwork = tmp;
+            }
             if (!network.data.equals(otherNetwork.data)) {
                 network.data = network.merge(otherNetwork);
+                networksChanged = true;
             }
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : otherNetwork.getRawNodeMap().entrySet()) {
-                PipeNetworkNode node = entry.getValue();
-                BlockPos nodePos = entry.getKey();
-                if (node != null) {
-                    node.network = network;
-                }
-                networkByBlock.put(nodePos, network);
-                network.setNode(nodePos, node);
-            }
-            var nodesCopy = new ArrayList<>(otherNetwork.getRawNodeMap().keySet());
-            for (var nodePos : nodesCopy) {
-                otherNetwork.removeNode(nodePos);
+            long[] nodesCopy = otherNetwork.getRawNodeMap().keySet().toLongArray();
+            for (long nodePos : nodesCopy) {
+                moveNode(nodePos, otherNetwork, network);
             }
             otherNetwork.onRemove();
             networks.remove(otherNetwork);
+            deferredNetworks.removeInt(otherNetwork);
+            networksChanged = true;
         }
         network.tickingCacheValid = false;
         checkStateCoherence();
@@ -185,66 +287,122 @@ public class PipeNetworkManager {
             return;
 
         // Remove links
-        BlockPos otherPos = pos.relative(direction);
-        links.get(pos).remove(direction);
-        links.get(otherPos).remove(direction.getOpposite());
-
-        // Run a DFS to mark all disconnected nodes.
-        PipeNetwork network = networkByBlock.get(pos);
-        Map<BlockPos, PipeNetworkNode> unvisitedNodes = new HashMap<>(network.getRawNodeMap());
+        long packedPos = pos.asLong();
+        long otherPos = BlockPos.offset(packedPos, direction);
+        links.put(packedPos, (byte) (links.get(packedPos) & ~directionBit(direction)));
+        links.put(otherPos, (byte) (links.get(otherPos) & ~directionBit(direction.getOpposite())));
+        changedRegions.add(getRegion(packedPos));
+        changedRegions.add(getRegion(otherPos));
+
+        PipeNetwork network = networkByBlock.get(packedPos);
         network.tickingCacheValid = false;
 
-        class Dfs {
-            private void dfs(BlockPos currentPos) {
-                // warning: don't try to use the return value of Map#remove, because it might be
-                // null if the node is not loaded.
-                if (!unvisitedNodes.containsKey(currentPos)) {
-                    return;
-                }
-                unvisitedNodes.remove(currentPos);
-                for (Direction direction : links.get(currentPos)) {
-                    dfs(currentPos.relative(direction));
-                }
+        // If the two sides are not connected anymore, move the smaller one to a new
+        // network.
+        LongSet detachedNodes = findDetachedSide(packedPos, otherPos);
+        if (detachedNodes != null) {
+            PipeNetwork newNetwork = createNetwork(network.data.clone());
+            for (LongIterator it = detachedNodes.iterator(); it.hasNext();) {
+                moveNode(it.nextLong(), network, newNetwork);
             }
         }
+        checkStateCoherence();
+    }
 
-        // Try to put all nodes in the current network
-        Dfs dfs = new Dfs();
-        dfs.dfs(pos);
+    /**
+     * Check whether two nodes are still connected after a link removal. A
+     * breadth-first search is run from both nodes at the same time, one node at a
+     * time, so that the cost is bounded by the size of the smaller side rather than
+     * by the size of the network.
+     *
+     * @return The nodes of the side that is not connected to the other side
+     *         anymore, or null if both nodes are still connected.
+     */
+    @Nullable
+    private LongSet findDetachedSide(long pos, long otherPos) {
+        LongSet visited = new LongOpenHashSet();
+        LongSet otherVisited = new LongOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        LongArrayFIFOQueue otherQueue = new LongArrayFIFOQueue();
+        visited.add(pos);
+        queue.enqueue(pos);
+        otherVisited.add(otherPos);
+        otherQueue.enqueue(otherPos);
+
+        while (true) {
+            if (queue.isEmpty()) {
+                return visited;
+            }
+            if (visitNextNode(queue, visited, otherVisited)) {
+                return null;
+            }
+            if (otherQueue.isEmpty()) {
+                return otherVisited;
+            }
+            if (visitNextNode(otherQueue, otherVisited, visited)) {
+                return null;
+            }
+        }
+    }
 
-        // If it was not possible, create a new network and transfer all unvisitedNodes
-        // to it.
-        if (unvisitedNodes.size() > 0) {
-            PipeNetwork newNetwork = createNetwork(network.data.clone());
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : unvisitedNodes.entrySet()) {
-                PipeNetworkNode node = entry.getValue();
-                BlockPos nodePos = entry.getKey();
-                if (node != null) {
-                    node.network = newNetwork;
-                }
-                networkByBlock.put(nodePos, newNetwork);
-                newNetwork.setNode(nodePos, node);
-                network.removeNode(nodePos);
+    /**
+     * Visit the next node of a search and queue its unvisited neighbors.
+     *
+     * @return True if the search reached a node visited by the other search.
+     */
+    private boolean visitNextNode(LongArrayFIFOQueue queue, LongSet visited, LongSet otherVisited) {
+        long currentPos = queue.dequeueLong();
+        byte mask = links.get(currentPos);
+        for (Direction direction : DIRECTIONS) {
+            if ((mask & directionBit(direction)) == 0) {
+                continue;
+            }
+            long neighbor = BlockPos.offset(currentPos, direction);
+            if (otherVisited.contains(neighbor)) {
+                return true;
+            }
+            if (visited.add(neighbor)) {
+                queue.enqueue(neighbor);
             }
         }
-        checkStateCoherence();
+        return false;
+    }
+
+    /**
+     * Move a node, loaded or not, from a network to another.
+     */
+    private void moveNode(long packedPos, PipeNetwork from, PipeNetwork to) {
+        // warning: don't try to use the return value of getNode to check if the node
+        // exists, because it might be null if the node is not loaded.
+        BlockPos nodePos = BlockPos.of(packedPos);
+        PipeNetworkNode node = from.getNode(nodePos);
+        if (node != null) {
+            node.network = to;
+        }
+        networkByBlock.put(packedPos, to);
+        changedRegions.add(getRegion(packedPos));
+        to.setNode(nodePos, node);
+        from.removeNode(nodePos);
+    }
+
+    private static int directionBit(Direction direction) {
+        return 1 << direction.get3DDataValue();
     }
 
     /**
      * Check if a link exists.
      */
     public boolean hasLink(BlockPos pos, Direction direction) {
-        var nodeLinks = links.get(pos);
-        return nodeLinks != null && nodeLinks.contains(direction);
+        return (links.get(pos.asLong()) & directionBit(direction)) != 0;
     }
 
     /**
      * Check if a link would be possible. A node must exist at pos.
      */
     public boolean canLink(BlockPos pos, Direction direction, boolean forceLink) {
-        BlockPos otherPos = pos.relative(direction);
-        PipeNetwork network = networkByBlock.get(pos);
-        PipeNetwork otherNetwork = networkByBlock.get(otherPos);
+        long packedPos = pos.asLong();
+        PipeNetwork network = networkByBlock.get(packedPos);
+        PipeNetwork otherNetwork = networkByBlock.get(BlockPos.offset(packedPos, direction));
         return otherNetwork != null && (network.data.equals(otherNetwork.data) || forceLink && network.merge(otherNetwork) != null);
     }
 
@@ -252,17 +410,18 @@ public class PipeNetworkManager {
      * Add a node and create a new network for it.
      */
     public void addNode(PipeNetworkNode node, BlockPos pos, PipeNetworkData data) {
-        if (networkByBlock.containsKey(pos))
+        if (networkByBlock.containsKey(pos.asLong()))
             throw new IllegalArgumentException("Cannot add a node that is already in the network.");
 
         PipeNetwork network = createNetwork(data.clone());
         if (node != null) {
             node.network = network;
         }
-        networkByBlock.put(pos.immutable(), network);
+        networkByBlock.put(pos.asLong(), network);
         incrementSpanned(pos);
         network.setNode(pos, node);
-        links.put(pos.immutable(), new HashSet<>());
+        links.put(pos.asLong(), (byte) 0);
+        addToRegion(pos.asLong());
         checkStateCoherence();
     }
 
@@ -274,11 +433,14 @@ public class PipeNetworkManager {
             removeLink(pos, direction);
         }
 
-        PipeNetwork network = networkByBlock.remove(pos);
+        PipeNetwork network = networkByBlock.remove(pos.asLong());
         decrementSpanned(pos);
         network.onRemove();
         networks.remove(network);
-        links.remove(pos);
+        deferredNetworks.removeInt(network);
+        networksChanged = true;
+        links.remove(pos.asLong());
+        removeFromRegion(pos.asLong());
         checkStateCoherence();
     }
 
@@ -286,7 +448,7 @@ public class PipeNetworkManager {
      * Should be called when a node is loaded, it will link the node to its network.
      */
     public void nodeLoaded(PipeNetworkNode node, BlockPos pos) {
-        PipeNetwork network = networkByBlock.get(pos);
+        PipeNetwork network = networkByBlock.get(pos.asLong());
         if (network == null) {
             // The network is null! That probably means that the node doesn't exist, e.g.
             // because a pipe was moved with Carrier.
@@ -325,24 +487,89 @@ public class PipeNetworkManager {
         network.manager = this;
         nextNetworkId++;
         networks.add(network);
+        networksChanged = true;
         checkStateCoherence();
         return network;
     }
 
     private void incrementSpanned(BlockPos pos) {
-        spannedChunks.computeIfAbsent(ChunkPos.asLong(pos), p -> new HashSet<>()).add(pos.immutable());
+        long chunkPos = ChunkPos.asLong(pos);
+        LongSet set = spannedChunks.get(chunkPos);
+        if (set == null) {
+            set = new LongOpenHashSet();
+            spannedChunks.put(chunkPos, set);
+        }
+        set.add(pos.asLong());
     }
 
     private void decrementSpanned(BlockPos pos) {
         long chunkPos = ChunkPos.asLong(pos);
-        Set<BlockPos> set = spannedChunks.get(chunkPos);
-        set.remove(pos);
-        if (set.size() == 0) {
+        LongSet set = spannedChunks.get(chunkPos);
+        set.remove(pos.asLong());
+        if (set.isEmpty()) {
             spannedChunks.remove(chunkPos);
         }
     }
 
-    public void fromNbt(CompoundTag tag) {
+    /**
+     * @return The save region of a position packed with {@link BlockPos#asLong},
+     *         itself packed with {@link ChunkPos#asLong}.
+     */
+    public static long getRegion(long packedPos) {
+        return ChunkPos.asLong(BlockPos.getX(packedPos) >> REGION_SHIFT, BlockPos.getZ(packedPos) >> REGION_SHIFT);
+    }
+
+    private void addToRegion(long packedPos) {
+        long region = getRegion(packedPos);
+        LongSet set = nodesByRegion.get(region);
+        if (set == null) {
+            set = new LongOpenHashSet();
+            nodesByRegion.put(region, set);
+            networksChanged = true;
+        }
+        set.add(packedPos);
+        changedRegions.add(region);
+    }
+
+    private void removeFromRegion(long packedPos) {
+        long region = getRegion(packedPos);
+        LongSet set = nodesByRegion.get(region);
+        set.remove(packedPos);
+        if (set.isEmpty()) {
+            nodesByRegion.remove(region);
+            networksChanged = true;
+        }
+        changedRegions.add(region);
+    }
+
+    /**
+     * @return The regions that currently contain at least one node.
+     */
+    public LongSet getRegions() {
+        return LongSets.unmodifiable(nodesByRegion.keySet());
+    }
+
+    /**
+     * Move the regions whose nodes changed since the last call to the given set.
+     *
+     * @return True if the networks themselves changed since the last call, in
+     *         which case {@link #toTag} should be saved again.
+     */
+    public boolean drainChanges(LongSet changedRegionsOut) {
+        changedRegionsOut.addAll(changedRegions);
+        changedRegions.clear();
+        boolean changed = networksChanged;
+        networksChanged = false;
+        return changed;
+    }
+
+    /**
+     * Load the networks and the nodes of every region.
+     *
+     * @param tag        The tag written by {@link #toTag}.
+     * @param regionTags The tags written by {@link #regionToTag} for every region.
+     */
+    public void fromNbt(CompoundTag tag, List<CompoundTag> regionTags) {
         // networks
         ListTag networksTag = tag.getList("networks", new CompoundTag().getId());
         for (Tag networkTag : networksTag) {
@@ -357,13 +584,16 @@ public class PipeNetworkManager {
         for (PipeNetwork network : networks) {
             networkIds.put(network.id, network);
         }
-        int[] data = tag.getIntArray("networkByBlock");
-        for (int i = 0; i < data.length / 5; i++) {
-            PipeNetwork network = networkIds.get(data[5 * i + 3]);
-            BlockPos pos = new BlockPos(data[5 * i], data[5 * i + 1], data[5 * i + 2]);
-            networkByBlock.put(pos, network);
-            network.setNode(pos, null);
-            links.put(pos, new HashSet<>(Arrays.asList(NbtHelper.decodeDirections((byte) data[5 * i + 4]))));
+        for (CompoundTag regionTag : regionTags) {
+            readNodes(regionTag.getIntArray("nodes"), networkIds);
+        }
+        changedRegions.clear();
+        networksChanged = false;
+        // Nodes used to be saved with the networks, in which case they are moved to
+        // their regions at the next save.
+        if (tag.contains("networkByBlock")) {
+            readNodes(tag.getIntArray("networkByBlock"), networkIds);
+            networksChanged = true;
         }
 
         // nextNetworkId
@@ -371,6 +601,17 @@ public class PipeNetworkManager {
         checkStateCoherence();
     }
 
+    private void readNodes(int[] data, Map<Integer, PipeNetwork> networkIds) {
+        for (int i = 0; i < data.length / 5; i++) {
+            PipeNetwork network = networkIds.get(data[5 * i + 3]);
+            BlockPos pos = new BlockPos(data[5 * i], data[5 * i + 1], data[5 * i + 2]);
+            networkByBlock.put(pos.asLong(), network);
+            network.setNode(pos, null);
+            links.put(pos.asLong(), (byte) (data[5 * i + 4] & 0x3F));
+            addToRegion(pos.asLong());
+        }
+    }
+
     public CompoundTag toTag(CompoundTag tag) {
         // networks
         List<CompoundTag> networksTags = new ArrayList<>();
@@ -381,22 +622,34 @@ public class PipeNetworkManager {
         networksTag.addAll(networksTags);
         tag.put("networks", networksTag);
 
+        // nextNetworkId
+        tag.putInt("nextNetworkId", nextNetworkId);
+        checkStateCoherence();
+        return tag;
+    }
+
+    /**
+     * Save the nodes of a single region. Nodes are saved separately from the
+     * networks so that only the regions that changed need to be written again.
+     */
+    public CompoundTag regionToTag(long region, CompoundTag tag) {
+        LongSet positions = nodesByRegion.get(region);
+        if (positions == null) {
+            return tag;
+        }
         // networkByBlock and links, every entry is identified by five consecutive
         // integers: x, y, z, network id, encoded links
-        int[] networkByBlockData = new int[networkByBlock.size() * 5];
+        int[] nodesData = new int[positions.size() * 5];
         int i = 0;
-        for (Map.Entry<BlockPos, PipeNetwork> entry : networkByBlock.entrySet()) {
-            networkByBlockData[i++] = entry.getKey().getX();
-            networkByBlockData[i++] = entry.getKey().getY();
-            networkByBlockData[i++] = entry.getKey().getZ();
-            networkByBlockData[i++] = entry.getValue().id;
-            networkByBlockData[i++] = NbtHelper.encodeDirections(links.get(entry.getKey()));
+        for (LongIterator it = positions.iterator(); it.hasNext();) {
+            long pos = it.nextLong();
+            nodesData[i++] = BlockPos.getX(pos);
+            nodesData[i++] = BlockPos.getY(pos);
+            nodesData[i++] = BlockPos.getZ(pos);
+            nodesData[i++] = networkByBlock.get(pos).id;
+            nodesData[i++] = links.get(pos);
         }
-        tag.putIntArray("networkByBlock", networkByBlockData);
-
-        // nextNetworkId
-        tag.putInt("nextNetworkId", nextNetworkId);
-        checkStateCoherence();
+        tag.putIntArray("nodes", nodesData);
         return tag;
     }
 
@@ -405,7 +658,14 @@ public class PipeNetworkManager {
     }
 
     public Set<Direction> getNodeLinks(BlockPos pos) {
-        return new HashSet<>(links.get(pos));
+        byte mask = links.get(pos.asLong());
+        Set<Direction> nodeLinks = EnumSet.noneOf(Direction.class);
+        for (Direction direction : DIRECTIONS) {
+            if ((mask & directionBit(direction)) != 0) {
+                nodeLinks.add(direction);
+            }
+        }
+        return nodeLinks;
     }
 
     /**
@@ -417,18 +677,20 @@ public class PipeNetworkManager {
         }
 
         customAssert(networkByBlock.keySet().equals(links.keySet()));
-        for (Map.Entry<BlockPos, PipeNetwork> entry : networkByBlock.entrySet()) {
+        for (var entry : Long2ObjectMaps.fastIterable(networkByBlock)) {
             customAssert(networks.contains(entry.getValue()));
-            PipeNetworkNode node = entry.getValue().getNode(entry.getKey());
+            PipeNetworkNode node = entry.getValue().getRawNodeMap().get(entry.getLongKey());
             customAssert(node == null || node.network == entry.getValue());
         }
-        for (Map.Entry<BlockPos, Set<Direction>> entry : links.entrySet()) {
-            customAssert(entry.getValue() != null);
+        for (var entry : Long2ByteMaps.fastIterable(links)) {
+            customAssert((entry.getByteValue() & ~0x3F) == 0);
+            LongSet region = nodesByRegion.get(getRegion(entry.getLongKey()));
+            customAssert(region != null && region.contains(entry.getLongKey()));
         }
         for (PipeNetwork network : networks) {
-            for (Map.Entry<BlockPos, PipeNetworkNode> entry : network.getRawNodeMap().entrySet()) {
+            for (var entry : Long2ObjectMaps.fastIterable(network.getRawNodeMap())) {
                 customAssert(entry.getValue() == null || entry.getValue().network == network);
-                customAssert(networkByBlock.get(entry.getKey()) == network);
+                customAssert(networkByBlock.get(entry.getLongKey()) == network);
             }
         }
     }
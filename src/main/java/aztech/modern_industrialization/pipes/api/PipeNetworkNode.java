@@ -38,6 +38,22 @@ import org.jetbrains.annotations.Nullable;
 
 public abstract class PipeNetworkNode {
     protected PipeNetwork network;
+    // Set by the network when this node is added, see PipeNetwork#setNode.
+    long packedPos;
+    boolean unsaved = false;
+
+    /**
+     * Mark the chunk of this node as unsaved at the end of the network tick. Must
+     * be called when the network changes data that is saved by {@link #toTag}.
+     * Changes made through the pipe block entity or the pipe GUI already mark the
+     * block entity as changed.
+     */
+    protected final void markUnsaved() {
+        if (!unsaved && network != null) {
+            unsaved = true;
+            network.manager.unsavedNodes.add(this);
+        }
+    }
 
     public void updateConnections(Level world, BlockPos pos) {
     }
@@ -29,12 +29,16 @@ import aztech.modern_industrialization.pipes.PipeStatsCollector;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToLongFunction;
 import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
 import net.minecraft.server.level.ServerLevel;
 
 public class ElectricityNetwork extends PipeNetwork {
     private static final List<MIEnergyStorage> STORAGES_CACHE = new ArrayList<>();
+    private static long[] limitsCache = new long[16];
+    private static long[] levelCache = new long[16];
 
     final CableTier tier;
     final PipeStatsCollector stats = new PipeStatsCollector();
@@ -64,11 +68,11 @@ public class ElectricityNetwork extends PipeNetwork {
         long networkCapacity = loadedNodeCount * tier.getMaxTransfer();
         try (var tx = Transaction.openOuter()) {
             long extractMaxAmount = Math.min(tier.getMaxTransfer(), networkCapacity - networkAmount);
-            long extracted = transferForTargets(MIEnergyStorage::extract, storages, extractMaxAmount, tx);
+            long extracted = transferForTargets(MIEnergyStorage::extract, MIEnergyStorage::getExtractLimit, storages, extractMaxAmount, tx);
             networkAmount += extracted;
 
             long insertMaxAmount = Math.min(tier.getMaxTransfer(), networkAmount);
-            long inserted = transferForTargets(MIEnergyStorage::insert, storages, insertMaxAmount, tx);
+            long inserted = transferForTargets(MIEnergyStorage::insert, MIEnergyStorage::getInsertLimit, storages, insertMaxAmount, tx);
             networkAmount -= inserted;
 
             tx.commit();
@@ -78,7 +82,7 @@ public class ElectricityNetwork extends PipeNetwork {
         // Split energy evenly across the nodes
         for (var entry : iterateTickingNodes()) {
             ElectricityNetworkNode electricityNode = (ElectricityNetworkNode) entry.getNode();
-            electricityNode.eu = networkAmount / loadedNodeCount;
+            electricityNode.setEu(networkAmount / loadedNodeCount);
             networkAmount -= electricityNode.eu;
             --loadedNodeCount;
         }
@@ -90,48 +94,159 @@ public class ElectricityNetwork extends PipeNetwork {
     /**
      * Perform a transfer operation across a list of targets. Will not mutate the
      * list. Does not check for the network's max transfer rate specifically.
+     *
+     * <p>
+     * The amount is split as evenly as possible: targets that can't take their
+     * share get everything they can take, and the rest is shared between the
+     * other targets. If a target takes less than it reported, for example because
+     * two targets are views of the same storage, the shortfall is shared again
+     * between the targets that took everything they were offered.
      */
-    private static long transferForTargets(TransferOperation operation, List<MIEnergyStorage> targets, long maxAmount,
-            TransactionContext transaction) {
-        // Build target list
-        List<EnergyTarget> sortableTargets = new ArrayList<>(targets.size());
-        for (var target : targets) {
-            sortableTargets.add(new EnergyTarget(target));
+    private static long transferForTargets(TransferOperation operation, ToLongFunction<MIEnergyStorage> limitGetter,
+            List<MIEnergyStorage> targets, long maxAmount, TransactionContext transaction) {
+        int size = targets.size();
+        if (size == 0 || maxAmount <= 0) {
+            return 0;
         }
-        // Shuffle for better transfer on average
-        Collections.shuffle(sortableTargets);
-        // Simulate the transfer for every target
-        for (EnergyTarget target : sortableTargets) {
-            try (var nested = transaction.openNested()) {
-                target.simulationResult = operation.transfer(target.target, maxAmount, nested);
+        if (limitsCache.length < size) {
+            limitsCache = new long[Math.max(size, 2 * limitsCache.length)];
+            levelCache = new long[limitsCache.length];
+        }
+
+        // Find out how much every target can take
+        long[] limits = limitsCache;
+        long totalLimit = 0;
+        for (int i = 0; i < size; ++i) {
+            MIEnergyStorage target = targets.get(i);
+            long limit = limitGetter.applyAsLong(target);
+            if (limit < 0) {
+                // The storage can't tell, so we simulate the transfer.
+                try (var nested = transaction.openNested()) {
+                    limit = operation.transfer(target, maxAmount, nested);
+                }
+            }
+            limits[i] = Math.min(limit, maxAmount);
+            totalLimit += limits[i];
+        }
+
+        // Every target gets min(limit, level), and the targets above the level share
+        // the remainder
+        long level, remainder;
+        if (totalLimit <= maxAmount) {
+            level = maxAmount;
+            remainder = 0;
+        } else {
+            System.arraycopy(limits, 0, levelCache, 0, size);
+            level = findLevel(levelCache, size, maxAmount);
+            remainder = maxAmount;
+            for (int i = 0; i < size; ++i) {
+                remainder -= Math.min(limits[i], level);
             }
         }
-        // Sort from low to high result
-        sortableTargets.sort(Comparator.comparingLong(t -> t.simulationResult));
-        // Actually perform the transfer
+
+        // Actually perform the transfer, starting at a random target so that the
+        // remainder is spread on average
+        // From now on, limits[i] is 1 if the target took everything it was offered, and
+        // might take more
+        int start = ThreadLocalRandom.current().nextInt(size);
         long transferredAmount = 0;
-        for (int i = 0; i < sortableTargets.size(); ++i) {
-            EnergyTarget target = sortableTargets.get(i);
-            int remainingTargets = sortableTargets.size() - i;
-            long remainingAmount = maxAmount - transferredAmount;
-            long targetMaxAmount = remainingAmount / remainingTargets;
+        int openTargets = 0;
+        boolean shortfall = false;
+        for (int j = 0; j < size; ++j) {
+            int i = (start + j) % size;
+            long amount = Math.min(limits[i], level);
+            if (remainder > 0 && limits[i] > level) {
+                amount++;
+                remainder--;
+            }
+            limits[i] = 0;
+            if (amount > 0) {
+                long transferred = operation.transfer(targets.get(i), amount, transaction);
+                transferredAmount += transferred;
+                if (transferred == amount) {
+                    limits[i] = 1;
+                    openTargets++;
+                } else {
+                    shortfall = true;
+                }
+            }
+        }
 
-            transferredAmount += operation.transfer(target.target, targetMaxAmount, transaction);
+        // Pass the shortfall on to the other targets. Every pass either transfers
+        // everything or closes at least one target.
+        while (shortfall && transferredAmount < maxAmount && openTargets > 0) {
+            long remaining = maxAmount - transferredAmount;
+            long share = remaining / openTargets;
+            long extra = remaining % openTargets;
+            shortfall = false;
+            openTargets = 0;
+            for (int j = 0; j < size; ++j) {
+                int i = (start + j) % size;
+                if (limits[i] == 0) {
+                    continue;
+                }
+                long amount = share;
+                if (extra > 0) {
+                    amount++;
+                    extra--;
+                }
+                long transferred = amount > 0 ? operation.transfer(targets.get(i), amount, transaction) : 0;
+                transferredAmount += transferred;
+                if (transferred == amount) {
+                    openTargets++;
+                } else {
+                    limits[i] = 0;
+                    shortfall = true;
+                }
+            }
         }
         return transferredAmount;
     }
 
+    /**
+     * Find the highest level such that the sum of min(value, level) doesn't exceed
+     * the amount, in expected linear time. The sum of the values must be greater
+     * than the amount. The values are reordered.
+     */
+    private static long findLevel(long[] values, int size, long amount) {
+        Random random = ThreadLocalRandom.current();
+        // Values before lo are below the level, values after hi are above it.
+        int lo = 0, hi = size;
+        long filled = 0;
+        int above = 0;
+        while (lo < hi) {
+            long pivot = values[lo + random.nextInt(hi - lo)];
+            // Partition into < pivot, == pivot and > pivot
+            int lt = lo, i = lo, gt = hi;
+            long lessSum = 0;
+            while (i < gt) {
+                long value = values[i];
+                if (value < pivot) {
+                    values[i++] = values[lt];
+                    values[lt++] = value;
+                    lessSum += value;
+                } else if (value > pivot) {
+                    values[i] = values[--gt];
+                    values[gt] = value;
+                } else {
+                    i++;
+                }
+            }
+            int equalCount = gt - lt;
+            if (filled + lessSum + pivot * (equalCount + hi - gt + above) <= amount) {
+                // The level is at least the pivot
+                filled += lessSum + pivot * equalCount;
+                lo = gt;
+            } else {
+                above += hi - lt;
+                hi = lt;
+            }
+        }
+        return (amount - filled) / above;
+    }
+
     @FunctionalInterface
     private interface TransferOperation {
         long transfer(MIEnergyStorage transferable, long maxAmount, TransactionContext transaction);
     }
-
-    private static class EnergyTarget {
-        final MIEnergyStorage target;
-        long simulationResult;
-
-        EnergyTarget(MIEnergyStorage target) {
-            this.target = target;
-        }
-    }
 }
@@ -47,6 +47,13 @@ public class ElectricityNetworkNode extends PipeNetworkNode {
     private final List<BlockApiCache<MIEnergyStorage, @NotNull Direction>> caches = new ArrayList<>();
     long eu = 0;
 
+    void setEu(long eu) {
+        if (this.eu != eu) {
+            this.eu = eu;
+            markUnsaved();
+        }
+    }
+
     public void appendAttributes(ServerLevel world, BlockPos pos, CableTier cableTier, List<MIEnergyStorage> storages) {
         if (caches.size() != connections.size()) {
             caches.clear();
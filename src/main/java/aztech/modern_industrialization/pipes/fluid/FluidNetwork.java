@@ -81,7 +81,7 @@ public class FluidNetwork extends PipeNetwork {
             // Rebalance fluid inside the nodes
             for (var entry : iterateTickingNodes()) {
                 FluidNetworkNode fluidNode = (FluidNetworkNode) entry.getNode();
-                fluidNode.amount = networkAmount / loadedNodeCount;
+                fluidNode.setAmount(networkAmount / loadedNodeCount);
                 networkAmount -= fluidNode.amount;
                 loadedNodeCount--;
             }
@@ -190,6 +190,7 @@ public class FluidNetwork extends PipeNetwork {
     protected void setFluid(FluidVariant fluid) {
         if (((FluidNetworkData) data).fluid.isBlank()) {
             ((FluidNetworkData) data).fluid = fluid;
+            markChanged();
         }
     }
 
@@ -205,8 +206,9 @@ public class FluidNetwork extends PipeNetwork {
         }
         // Clear
         for (PipeNetworkNode node : getRawNodeMap().values()) {
-            ((FluidNetworkNode) node).amount = 0;
+            ((FluidNetworkNode) node).setAmount(0);
         }
         ((FluidNetworkData) data).fluid = FluidVariant.blank();
+        markChanged();
     }
 }
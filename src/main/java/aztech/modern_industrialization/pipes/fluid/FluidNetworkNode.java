@@ -63,6 +63,13 @@ public class FluidNetworkNode extends PipeNetworkNode {
     private final List<FluidConnection> connections = new ArrayList<>();
     private FluidVariant cachedFluid = FluidVariant.blank();
 
+    void setAmount(long amount) {
+        if (this.amount != amount) {
+            this.amount = amount;
+            markUnsaved();
+        }
+    }
+
     /**
      * Add all valid targets to the target list, and pick the fluid for the network
      * if no fluid is set.
@@ -73,11 +80,11 @@ public class FluidNetworkNode extends PipeNetworkNode {
 
         if (amount > network.nodeCapacity) {
             ModernIndustrialization.LOGGER.warn("Fluid amount > nodeCapacity, deleting some fluid!");
-            amount = network.nodeCapacity;
+            setAmount(network.nodeCapacity);
         }
         if (amount > 0 && data.fluid.isBlank()) {
             ModernIndustrialization.LOGGER.warn("Amount > 0 but fluid is blank, deleting some fluid!");
-            amount = 0;
+            setAmount(0);
         }
 
         for (FluidConnection connection : connections) {
@@ -85,6 +92,9 @@ public class FluidNetworkNode extends PipeNetworkNode {
             if (data.fluid.isBlank() && connection.canExtract()) {
                 // Try to set fluid, will return null if none could be found.
                 data.fluid = MoreObjects.firstNonNull(StorageUtil.findExtractableResource(storage, null), FluidVariant.blank());
+                if (!data.fluid.isBlank()) {
+                    network.markChanged();
+                }
             }
             targets.add(new FluidTarget(connection.priority, new IoStorage<>(storage, connection.canInsert(), connection.canExtract())));
         }
@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.pipes.impl;
+
+import aztech.modern_industrialization.util.MISavedData;
+import net.minecraft.nbt.CompoundTag;
+
+/**
+ * The nodes of all pipe networks in a 32x32 chunk region. The data itself is
+ * owned by {@link PipeNetworks}, this file is only written when it is dirty.
+ */
+class PipeNetworkRegion extends MISavedData {
+    private final PipeNetworks networks;
+    private final long region;
+
+    PipeNetworkRegion(PipeNetworks networks, long region) {
+        this.networks = networks;
+        this.region = region;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag nbt) {
+        return networks.saveRegion(region, nbt);
+    }
+}
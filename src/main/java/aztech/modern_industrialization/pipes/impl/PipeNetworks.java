@@ -27,7 +27,11 @@ import aztech.modern_industrialization.pipes.api.PipeNetworkManager;
 import aztech.modern_industrialization.pipes.api.PipeNetworkType;
 import aztech.modern_industrialization.util.MISavedData;
 import aztech.modern_industrialization.util.WorldHelper;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import java.util.*;
+import java.util.function.Consumer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceLocation;
@@ -36,13 +40,24 @@ import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * Pipe networks of a world. The networks themselves are saved in this file,
+ * while their nodes are saved in one {@link PipeNetworkRegion} per region, so
+ * that only the regions that changed are written again.
+ */
 public class PipeNetworks extends MISavedData {
     private static final String NAME = "modern_industrialization_pipe_networks";
-    private final Map<PipeNetworkType, PipeNetworkManager> managers;
+    private final Map<PipeNetworkType, PipeNetworkManager> managers = new HashMap<>();
     private final Map<Long, List<Runnable>> loadPipesByChunk = new HashMap<>();
+    private final LongSet changedRegions = new LongOpenHashSet();
+    /**
+     * Saved tag of this file, kept until the regions are loaded.
+     */
+    @Nullable
+    private CompoundTag pendingTag;
 
-    public PipeNetworks(Map<PipeNetworkType, PipeNetworkManager> managers) {
-        this.managers = managers;
+    private PipeNetworks(@Nullable CompoundTag pendingTag) {
+        this.pendingTag = pendingTag;
     }
 
     public PipeNetworkManager getManager(PipeNetworkType type) {
@@ -56,28 +71,79 @@ public class PipeNetworks extends MISavedData {
 
     @Override
     public CompoundTag save(CompoundTag nbt) {
+        LongSet regions = new LongOpenHashSet();
         for (Map.Entry<PipeNetworkType, PipeNetworkManager> entry : managers.entrySet()) {
             nbt.put(entry.getKey().getIdentifier().toString(), entry.getValue().toTag(new CompoundTag()));
+            regions.addAll(entry.getValue().getRegions());
+        }
+        nbt.putLongArray("regions", regions.toLongArray());
+        return nbt;
+    }
+
+    CompoundTag saveRegion(long region, CompoundTag nbt) {
+        for (Map.Entry<PipeNetworkType, PipeNetworkManager> entry : managers.entrySet()) {
+            nbt.put(entry.getKey().getIdentifier().toString(), entry.getValue().regionToTag(region, new CompoundTag()));
         }
         return nbt;
     }
 
-    public static PipeNetworks readNbt(CompoundTag nbt) {
-        Map<PipeNetworkType, PipeNetworkManager> managers = new HashMap<>();
+    private void load(ServerLevel world, CompoundTag nbt) {
+        Map<String, List<CompoundTag>> regionTags = new HashMap<>();
+        for (long region : nbt.getLongArray("regions")) {
+            getRegionData(world, region, regionTag -> {
+                for (String tagKey : regionTag.getAllKeys()) {
+                    regionTags.computeIfAbsent(tagKey, k -> new ArrayList<>()).add(regionTag.getCompound(tagKey));
+                }
+            });
+        }
+
         for (Map.Entry<ResourceLocation, PipeNetworkType> entry : PipeNetworkType.getTypes().entrySet()) {
             PipeNetworkManager manager = new PipeNetworkManager(entry.getValue());
             String tagKey = entry.getKey().toString();
             if (nbt.contains(tagKey)) {
-                manager.fromNbt(nbt.getCompound(tagKey));
+                manager.fromNbt(nbt.getCompound(tagKey), regionTags.getOrDefault(tagKey, List.of()));
             }
             managers.put(entry.getValue(), manager);
         }
-        return new PipeNetworks(managers);
+    }
+
+    /**
+     * Get the saved data of a region, creating it if necessary.
+     *
+     * @param loader Called with the saved tag of the region if it has to be read
+     *               from disk.
+     */
+    private PipeNetworkRegion getRegionData(ServerLevel world, long region, Consumer<CompoundTag> loader) {
+        String name = NAME + "_" + ChunkPos.getX(region) + "_" + ChunkPos.getZ(region);
+        return world.getDataStorage().computeIfAbsent(tag -> {
+            loader.accept(tag);
+            return new PipeNetworkRegion(this, region);
+        }, () -> new PipeNetworkRegion(this, region), name);
+    }
+
+    /**
+     * Mark the saved data of every change since the last call as dirty.
+     */
+    private void markChanges(ServerLevel world) {
+        for (PipeNetworkManager manager : managers.values()) {
+            if (manager.drainChanges(changedRegions)) {
+                setDirty();
+            }
+        }
+        for (LongIterator it = changedRegions.iterator(); it.hasNext();) {
+            getRegionData(world, it.nextLong(), tag -> {
+            }).setDirty();
+        }
+        changedRegions.clear();
     }
 
     public static PipeNetworks get(ServerLevel world) {
-        PipeNetworks networks = world.getDataStorage().computeIfAbsent(PipeNetworks::readNbt, () -> new PipeNetworks(new HashMap<>()), NAME);
-        networks.setDirty();
+        PipeNetworks networks = world.getDataStorage().computeIfAbsent(PipeNetworks::new, () -> new PipeNetworks(null), NAME);
+        if (networks.pendingTag != null) {
+            CompoundTag nbt = networks.pendingTag;
+            networks.pendingTag = null;
+            networks.load(world, nbt);
+        }
         return networks;
     }
 
@@ -110,6 +176,8 @@ public class PipeNetworks extends MISavedData {
             for (PipeNetworkManager manager : networks.managers.values()) {
                 manager.tickNetworks(world);
             }
+
+            networks.markChanges(world);
         });
     }
 }
@@ -27,6 +27,7 @@ import aztech.modern_industrialization.api.WhitelistedItemStorage;
 import aztech.modern_industrialization.pipes.api.PipeNetwork;
 import aztech.modern_industrialization.pipes.api.PipeNetworkData;
 import aztech.modern_industrialization.util.StorageUtil2;
+import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
@@ -43,98 +44,131 @@ import net.fabricmc.fabric.api.transfer.v1.storage.base.CombinedStorage;
 import net.fabricmc.fabric.api.transfer.v1.storage.base.InsertionOnlyStorage;
 import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
 import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
-import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.item.Item;
+import org.jetbrains.annotations.Nullable;
 
 public class ItemNetwork extends PipeNetwork {
     public static final int TICK_RATE = 60;
     private static final ReferenceOpenHashSet<Item> WHITELIST_CACHED_SET = new ReferenceOpenHashSet<>();
 
-    int inactiveTicks = 0;
+    // Negative until the first transfer is scheduled.
+    int inactiveTicks = -1;
     long lastMovedItems = 0;
 
+    /**
+     * Routing table, rebuilt when connections, filters, priorities or the target
+     * storages change, and otherwise reused across transfers.
+     */
+    private boolean routesValid = false;
+    // Lower priority extracts first.
+    private final List<ExtractionTarget> extractionTargets = new ArrayList<>();
+    // All insert connections, including the ones that have no storage right now.
+    private final List<InsertTarget> insertConnections = new ArrayList<>();
+    // Sorted by priority, high to low.
+    private final List<PriorityBucket> sortedBuckets = new ArrayList<>();
+    // Rebuilt for every transfer from the buckets.
+    private final List<Aggregate> insertTargets = new ArrayList<>();
+    private final CombinedStorage<ItemVariant, Aggregate> insertStorage = new CombinedStorage<>(insertTargets);
+
     public ItemNetwork(int id, PipeNetworkData data) {
         super(id, data == null ? new ItemNetworkData() : data);
     }
 
     @Override
     public void tick(ServerLevel world) {
+        if (inactiveTicks < 0) {
+            // Spread networks over the period, so that they don't all transfer in the same tick.
+            inactiveTicks = Math.floorMod(HashCommon.mix(id), TICK_RATE);
+        }
         // Only tick once
         if (inactiveTicks == 0) {
-            doNetworkTransfer(world);
+            if (!manager.runDeferrableWork(world, this, () -> doNetworkTransfer(world))) {
+                // Too much work this tick, try again next tick.
+                return;
+            }
             inactiveTicks = TICK_RATE;
         }
         --inactiveTicks;
     }
 
-    private void doNetworkTransfer(ServerLevel world) {
-        List<ExtractionTarget> extractionTargets = new ArrayList<>();
-        for (var entry : iterateTickingNodes()) {
-            BlockPos pos = entry.getPos();
-            ItemNetworkNode itemNode = (ItemNetworkNode) entry.getNode();
-            for (ItemNetworkNode.ItemConnection connection : itemNode.connections) {
-                if (connection.canExtract()) {
-                    Storage<ItemVariant> source = ItemStorage.SIDED.find(world, pos.relative(connection.direction),
-                            connection.direction.getOpposite());
+    @Override
+    protected void onTickingNodesChanged() {
+        routesValid = false;
+    }
 
-                    if (source != null) {
-                        extractionTargets.add(new ExtractionTarget(connection, source));
-                    }
+    /**
+     * Called by the nodes when the configuration of a connection changes.
+     */
+    void invalidateRoutes() {
+        routesValid = false;
+    }
+
+    private void doNetworkTransfer(ServerLevel world) {
+        var tickingNodes = iterateTickingNodes();
+        if (routesValid) {
+            for (InsertTarget target : insertConnections) {
+                if (!target.refresh()) {
+                    routesValid = false;
                 }
             }
         }
-        // Lower priority extracts first.
-        extractionTargets.sort(Comparator.comparing(et -> et.connection.extractPriority));
+        if (!routesValid) {
+            rebuildRoutes(world, tickingNodes);
+        }
 
         // Do the actual transfer.
-        var insertTargets = getAggregatedInsertTargets(world);
-        var insertStorage = new CombinedStorage<>(insertTargets);
+        prepareInsertTargets();
         lastMovedItems = 0;
         try (Transaction tx = Transaction.openOuter()) {
             for (ExtractionTarget target : extractionTargets) {
+                Storage<ItemVariant> source = target.connection.cache.find(target.connection.direction.getOpposite());
+                if (source == null) {
+                    continue;
+                }
+
                 // Lower priority extracts first, and pipes can only move items to things that have >= priorities.
                 // So we can just pop insert targets at the end of the list if they have a priority smaller than the current extraction target.
                 while (insertTargets.size() > 0 && target.connection.extractPriority > insertTargets.get(insertTargets.size() - 1).getPriority()) {
                     insertTargets.remove(insertTargets.size() - 1);
                 }
 
-                lastMovedItems += StorageUtil.move(target.storage, insertStorage, target.connection::canStackMoveThrough,
+                lastMovedItems += StorageUtil.move(source, insertStorage, target.connection::canStackMoveThrough,
                         target.connection.getMoves(), tx);
             }
             tx.commit();
         }
     }
 
-    private static class ExtractionTarget {
-        private final ItemNetworkNode.ItemConnection connection;
-        private final Storage<ItemVariant> storage;
-
-        private ExtractionTarget(ItemNetworkNode.ItemConnection connection, Storage<ItemVariant> storage) {
-            this.connection = connection;
-            this.storage = storage;
-        }
+    private record ExtractionTarget(ItemNetworkNode.ItemConnection connection) {
     }
 
     /**
-     * Find all connections in which to insert that are loaded.
+     * Find all connections in which to insert or from which to extract that are
+     * loaded, and group the insert targets by priority.
      */
-    private List<Aggregate> getAggregatedInsertTargets(ServerLevel world) {
+    private void rebuildRoutes(ServerLevel world, Collection<PosNode> tickingNodes) {
+        extractionTargets.clear();
+        insertConnections.clear();
+        sortedBuckets.clear();
         Int2ObjectMap<PriorityBucket> priorityBuckets = new Int2ObjectOpenHashMap<>();
 
-        for (var entry : iterateTickingNodes()) {
+        for (var entry : tickingNodes) {
             ItemNetworkNode node = (ItemNetworkNode) entry.getNode();
             for (ItemNetworkNode.ItemConnection connection : node.connections) {
+                if (connection.cache == null) {
+                    connection.cache = BlockApiCache.create(ItemStorage.SIDED, world, entry.getPos().relative(connection.direction));
+                }
+                if (connection.canExtract()) {
+                    extractionTargets.add(new ExtractionTarget(connection));
+                }
                 if (connection.canInsert()) {
-                    if (connection.cache == null) {
-                        connection.cache = BlockApiCache.create(ItemStorage.SIDED, world, entry.getPos().relative(connection.direction));
-                    }
-                    Storage<ItemVariant> target = connection.cache.find(connection.direction.getOpposite());
-                    if (target != null && target.supportsInsertion()) {
+                    InsertTarget it = new InsertTarget(connection);
+                    insertConnections.add(it);
+                    it.refresh();
+                    if (it.available) {
                         PriorityBucket bucket = priorityBuckets.computeIfAbsent(connection.insertPriority, PriorityBucket::new);
-                        InsertTarget it = new InsertTarget(connection, StorageUtil2.wrapInventory(target));
-
-                        if (connection.whitelist || (target instanceof WhitelistedItemStorage wis && wis.currentlyWhitelisted())) {
+                        if (it.whitelisted) {
                             bucket.whitelist.add(it);
                         } else {
                             bucket.blacklist.add(it);
@@ -143,41 +177,58 @@ public class ItemNetwork extends PipeNetwork {
                 }
             }
         }
+        // Lower priority extracts first.
+        extractionTargets.sort(Comparator.comparing(et -> et.connection.extractPriority));
 
-        PriorityBucket[] sortedBuckets = priorityBuckets.values().toArray(new PriorityBucket[0]);
+        for (PriorityBucket pb : priorityBuckets.values()) {
+            if (pb.whitelist.size() > 0) {
+                pb.whitelistAggregate = new WhitelistAggregate(pb.priority, pb.whitelist);
+            }
+            if (pb.blacklist.size() > 0) {
+                pb.blacklistAggregate = new BlacklistAggregate(pb.priority, pb.blacklist);
+            }
+            sortedBuckets.add(pb);
+        }
         // Now we sort by priority, high to low
-        Arrays.sort(sortedBuckets, Comparator.comparingInt(pb -> -pb.priority));
+        sortedBuckets.sort(Comparator.comparingInt(pb -> -pb.priority));
+        routesValid = true;
+    }
 
-        List<Aggregate> targets = new ArrayList<>();
+    /**
+     * Fill {@link #insertTargets} for the next transfer, choosing a new random
+     * order for targets that have the same priority.
+     */
+    private void prepareInsertTargets() {
+        insertTargets.clear();
         Random random = ThreadLocalRandom.current();
 
         for (PriorityBucket pb : sortedBuckets) {
             int whitelistSize = pb.whitelist.size();
             int blacklistSize = pb.blacklist.size();
             if (whitelistSize > 0) {
-                Collections.shuffle(pb.whitelist);
-                targets.add(new WhitelistAggregate(pb.priority, pb.whitelist));
+                pb.whitelistAggregate.start = random.nextInt(whitelistSize);
+                insertTargets.add(pb.whitelistAggregate);
             }
             if (blacklistSize > 0) {
-                Collections.shuffle(pb.blacklist);
-                targets.add(new BlacklistAggregate(pb.priority, pb.blacklist));
+                pb.blacklistAggregate.start = random.nextInt(blacklistSize);
+                insertTargets.add(pb.blacklistAggregate);
             }
 
             // Ensure equal chance to receive items on average.
             if (whitelistSize > 0 && blacklistSize > 0) {
                 if (random.nextDouble() >= (double) whitelistSize / (whitelistSize + blacklistSize)) {
-                    Collections.swap(targets, targets.size() - 2, targets.size() - 1);
+                    Collections.swap(insertTargets, insertTargets.size() - 2, insertTargets.size() - 1);
                 }
             }
         }
-
-        return targets;
     }
 
     private static class PriorityBucket {
         private final int priority;
         private final List<InsertTarget> whitelist = new ArrayList<>();
         private final List<InsertTarget> blacklist = new ArrayList<>();
+        private WhitelistAggregate whitelistAggregate;
+        private BlacklistAggregate blacklistAggregate;
 
         private PriorityBucket(int priority) {
             this.priority = priority;
@@ -196,9 +247,11 @@ public class ItemNetwork extends PipeNetwork {
     private static class WhitelistAggregate implements Aggregate {
         private final int priority;
         // Used when the inserted item doesn't have NBT
-        private final Map<Item, List<Storage<ItemVariant>>> map = new IdentityHashMap<>();
+        private final Map<Item, List<InsertTarget>> map = new IdentityHashMap<>();
         // Used when the inserted item has NBT.
         private final List<InsertTarget> targets;
+        // Random index of the first target to try, chosen for every transfer.
+        private int start;
 
         WhitelistAggregate(int priority, List<InsertTarget> targets) {
             this.priority = priority;
@@ -208,14 +261,12 @@ public class ItemNetwork extends PipeNetwork {
                     ItemNetworkNode.ItemConnection conn = target.connection;
                     for (ItemVariant variant : conn.stacksCache) {
                         if (!variant.hasNbt()) {
-                            map.computeIfAbsent(variant.getItem(), v -> new ArrayList<>()).add(target.target);
+                            map.computeIfAbsent(variant.getItem(), v -> new ArrayList<>()).add(target);
                         }
                     }
-                } else if (target.target instanceof WhitelistedItemStorage wis) {
-                    WHITELIST_CACHED_SET.clear();
-                    wis.getWhitelistedItems(WHITELIST_CACHED_SET);
-                    for (Item item : WHITELIST_CACHED_SET) {
-                        map.computeIfAbsent(item, v -> new ArrayList<>()).add(target.target);
+                } else if (target.storage instanceof WhitelistedItemStorage) {
+                    for (Item item : target.whitelistedItems) {
+                        map.computeIfAbsent(item, v -> new ArrayList<>()).add(target);
                     }
                 } else {
                     throw new IllegalStateException("Internal item pipe error! Should never happen!");
@@ -226,16 +277,17 @@ public class ItemNetwork extends PipeNetwork {
         @Override
         public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
             if (resource.hasNbt()) {
-                return insertTargets(targets, resource, maxAmount, transaction);
+                return insertTargets(targets, start, resource, maxAmount, transaction);
             }
 
             StoragePreconditions.notBlankNotNegative(resource, maxAmount);
             long totalInserted = 0;
 
-            List<Storage<ItemVariant>> targets = map.get(resource.getItem());
+            List<InsertTarget> targets = map.get(resource.getItem());
             if (targets != null) {
-                for (Storage<ItemVariant> target : targets) {
-                    long inserted = target.insert(resource, maxAmount, transaction);
+                int size = targets.size();
+                for (int i = 0; i < size; ++i) {
+                    long inserted = targets.get((start + i) % size).storage.insert(resource, maxAmount, transaction);
                     maxAmount -= inserted;
                     totalInserted += inserted;
                     if (maxAmount == 0) {
@@ -256,6 +308,8 @@ public class ItemNetwork extends PipeNetwork {
     private static class BlacklistAggregate implements Aggregate {
         private final int priority;
         private final List<InsertTarget> targets;
+        // Random index of the first target to try, chosen for every transfer.
+        private int start;
 
         private BlacklistAggregate(int priority, List<InsertTarget> targets) {
             this.priority = priority;
@@ -264,7 +318,7 @@ public class ItemNetwork extends PipeNetwork {
 
         @Override
         public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
-            return insertTargets(targets, resource, maxAmount, transaction);
+            return insertTargets(targets, start, resource, maxAmount, transaction);
         }
 
         @Override
@@ -273,13 +327,16 @@ public class ItemNetwork extends PipeNetwork {
         }
     }
 
-    private static long insertTargets(List<InsertTarget> targets, ItemVariant resource, long maxAmount, TransactionContext transaction) {
+    private static long insertTargets(List<InsertTarget> targets, int start, ItemVariant resource, long maxAmount,
+            TransactionContext transaction) {
         StoragePreconditions.notBlankNotNegative(resource, maxAmount);
         long totalInserted = 0;
 
-        for (InsertTarget target : targets) {
+        int size = targets.size();
+        for (int i = 0; i < size; ++i) {
+            InsertTarget target = targets.get((start + i) % size);
             if (target.connection.canStackMoveThrough(resource)) {
-                long inserted = target.target.insert(resource, maxAmount, transaction);
+                long inserted = target.storage.insert(resource, maxAmount, transaction);
                 maxAmount -= inserted;
                 totalInserted += inserted;
                 if (maxAmount == 0) {
@@ -291,6 +348,50 @@ public class ItemNetwork extends PipeNetwork {
         return totalInserted;
     }
 
-    private record InsertTarget(ItemNetworkNode.ItemConnection connection, Storage<ItemVariant> target) {
+    private static class InsertTarget {
+        private final ItemNetworkNode.ItemConnection connection;
+        @Nullable
+        private Storage<ItemVariant> foundStorage;
+        @Nullable
+        private Storage<ItemVariant> storage;
+        private boolean available;
+        private boolean whitelisted;
+        // Only used for whitelisted storages that are not whitelisted by the connection itself.
+        private final Set<Item> whitelistedItems = new ReferenceOpenHashSet<>();
+
+        private InsertTarget(ItemNetworkNode.ItemConnection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * Look up the target storage again. This is cheap because the connection
+         * caches the lookup.
+         *
+         * @return False if the target changed in a way that requires rebuilding the
+         *         routes.
+         */
+        private boolean refresh() {
+            Storage<ItemVariant> found = connection.cache.find(connection.direction.getOpposite());
+            if (found != foundStorage) {
+                foundStorage = found;
+                storage = StorageUtil2.wrapInventory(found);
+            }
+
+            boolean wasAvailable = available, wasWhitelisted = whitelisted;
+            available = storage != null && storage.supportsInsertion();
+            whitelisted = available && (connection.whitelist || (storage instanceof WhitelistedItemStorage wis && wis.currentlyWhitelisted()));
+            boolean valid = available == wasAvailable && whitelisted == wasWhitelisted;
+
+            if (whitelisted && !connection.whitelist) {
+                WHITELIST_CACHED_SET.clear();
+                ((WhitelistedItemStorage) storage).getWhitelistedItems(WHITELIST_CACHED_SET);
+                if (!WHITELIST_CACHED_SET.equals(whitelistedItems)) {
+                    whitelistedItems.clear();
+                    whitelistedItems.addAll(WHITELIST_CACHED_SET);
+                    valid = false;
+                }
+            }
+            return valid;
+        }
     }
 }
@@ -71,7 +71,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
     public void updateConnections(Level world, BlockPos pos) {
         // Remove the connection to the outside world if a connection to another pipe is made.
         var levelNetworks = PipeNetworks.get((ServerLevel) world);
-        connections.removeIf(connection -> {
+        boolean removed = connections.removeIf(connection -> {
             for (var type : PipeNetworkType.getTypes().values()) {
                 var manager = levelNetworks.getOptionalManager(type);
                 if (manager != null && manager.hasLink(pos, connection.direction)) {
@@ -81,6 +81,15 @@ public class ItemNetworkNode extends PipeNetworkNode {
             }
             return false;
         });
+        if (removed) {
+            invalidateRoutes();
+        }
+    }
+
+    private void invalidateRoutes() {
+        if (network instanceof ItemNetwork itemNetwork) {
+            itemNetwork.invalidateRoutes();
+        }
     }
 
     private boolean canConnect(Level world, BlockPos pos, Direction direction) {
@@ -114,6 +123,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     conn.dropUpgrades(world, pos);
                     connections.remove(i);
                 }
+                invalidateRoutes();
                 return;
             }
         }
@@ -131,6 +141,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
         if (canConnect(world, pos, direction)) {
             var conn = new ItemConnection(direction, BLOCK_IN, 0, -10);
             connections.add(conn);
+            invalidateRoutes();
             // Apply memory card in the off-hand.
             var offHandItem = player.getOffhandItem();
             if (MIItem.CONFIG_CARD.is(offHandItem)) {
@@ -341,6 +352,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                 }
             }
 
+            invalidateRoutes();
             pipe.setChanged();
             if (remesh) {
                 pipe.sync();
@@ -369,6 +381,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     @Override
                     public void setWhitelist(boolean whitelist) {
                         ItemConnection.this.whitelist = whitelist;
+                        invalidateRoutes();
                         helper.callMarkDirty();
                     }
 
@@ -381,6 +394,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     public void setStack(int slot, ItemStack stack) {
                         stacks[slot] = stack;
                         refreshStacksCache();
+                        invalidateRoutes();
                         helper.callMarkDirty();
                     }
 
@@ -404,6 +418,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                     public void setConnectionType(int type) {
                         if (0 <= type && type < 3) {
                             ItemConnection.this.type = decodeConnectionType(type);
+                            invalidateRoutes();
                             helper.callMarkDirty();
                             helper.callSync();
                         }
@@ -421,6 +436,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
                         } else {
                             ItemConnection.this.extractPriority = priority;
                         }
+                        invalidateRoutes();
                         helper.callMarkDirty();
                     }
 
@@ -457,7 +473,7 @@ public class ItemNetworkNode extends PipeNetworkNode {
     // Used in the Waila plugin
     public InGameInfo collectNetworkInfo() {
         var itemNetwork = (ItemNetwork) network;
-        return new InGameInfo(itemNetwork.lastMovedItems, itemNetwork.inactiveTicks);
+        return new InGameInfo(itemNetwork.lastMovedItems, Math.max(0, itemNetwork.inactiveTicks));
     }
 
     public record InGameInfo(long movedItems, int pulse) {
@@ -0,0 +1,328 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.resource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.packs.AbstractPackResources;
+import net.minecraft.server.packs.PackType;
+import net.minecraft.server.packs.ResourcePackFileNotFoundException;
+
+/**
+ * Serves generated resources from a single archive file, memory-mapped once so
+ * that looking up or reading a resource doesn't need any file system access.
+ *
+ * <p>
+ * Archive layout, all integers big endian:
+ * <ul>
+ * <li>Header: magic, version, entry count.</li>
+ * <li>Index: one entry per resource, sorted by unsigned path hash. Each entry has the
+ * 64-bit FNV-1a hash of the UTF-8 path, the offset and length of the path,
+ * and the offset and length of the data.</li>
+ * <li>Paths, then resource data.</li>
+ * </ul>
+ */
+public class ArchivePackResources extends AbstractPackResources {
+    private static final int MAGIC = 0x4D495041; // MIPA
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 24;
+
+    private final PackType type;
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    /**
+     * All paths in the archive, sorted, for listing resources.
+     */
+    private final String[] sortedPaths;
+
+    public ArchivePackResources(File file, PackType type) throws IOException {
+        super(file);
+        this.type = type;
+
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Resource archive is too large: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid or outdated resource archive " + file);
+        }
+        this.entryCount = buffer.getInt(8);
+        validateEntries(file);
+
+        this.sortedPaths = new String[entryCount];
+        for (int i = 0; i < entryCount; ++i) {
+            sortedPaths[i] = readPath(i);
+        }
+        Arrays.sort(sortedPaths);
+    }
+
+    /**
+     * Check that the index and every range it points to are inside the archive, so
+     * that a truncated or corrupt archive is rejected here instead of failing later.
+     */
+    private void validateEntries(File file) throws IOException {
+        if (entryCount < 0 || HEADER_SIZE + (long) entryCount * ENTRY_SIZE > buffer.limit()) {
+            throw new IOException("Truncated resource archive index in " + file);
+        }
+        for (int i = 0; i < entryCount; ++i) {
+            int offset = entryOffset(i);
+            if (!isValidRange(buffer.getInt(offset + 8), buffer.getInt(offset + 12))
+                    || !isValidRange(buffer.getInt(offset + 16), buffer.getInt(offset + 20))) {
+                throw new IOException("Corrupt resource archive entry " + i + " in " + file);
+            }
+        }
+    }
+
+    private boolean isValidRange(int offset, int length) {
+        return offset >= 0 && length >= 0 && (long) offset + length <= buffer.limit();
+    }
+
+    private static int entryOffset(int entry) {
+        return HEADER_SIZE + entry * ENTRY_SIZE;
+    }
+
+    private String readPath(int entry) {
+        int offset = entryOffset(entry);
+        byte[] bytes = new byte[buffer.getInt(offset + 12)];
+        buffer.get(buffer.getInt(offset + 8), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Return the index entry for the path, or -1 if the path is not in the archive.
+     */
+    private int findEntry(String resourcePath) {
+        byte[] pathBytes = resourcePath.getBytes(StandardCharsets.UTF_8);
+        long hash = hashPath(pathBytes);
+
+        // Binary search for the first entry with this hash
+        int lo = 0, hi = entryCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(buffer.getLong(entryOffset(mid)), hash) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        // Check the path of every entry with this hash, in case of collisions
+        for (int entry = lo; entry < entryCount && buffer.getLong(entryOffset(entry)) == hash; ++entry) {
+            if (pathEquals(entry, pathBytes)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private boolean pathEquals(int entry, byte[] pathBytes) {
+        int offset = entryOffset(entry);
+        int pathOffset = buffer.getInt(offset + 8);
+        if (buffer.getInt(offset + 12) != pathBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < pathBytes.length; ++i) {
+            if (buffer.get(pathOffset + i) != pathBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected InputStream getResource(String resourcePath) throws IOException {
+        if ("pack.mcmeta".equals(resourcePath)) {
+            return GeneratedFolderPackResources.createPackMcmeta(type);
+        }
+
+        int entry = findEntry(resourcePath);
+        if (entry == -1) {
+            throw new ResourcePackFileNotFoundException(file, resourcePath);
+        }
+        int offset = entryOffset(entry);
+        return new ByteBufferInputStream(buffer.slice(buffer.getInt(offset + 16), buffer.getInt(offset + 20)));
+    }
+
+    @Override
+    protected boolean hasResource(String resourcePath) {
+        return findEntry(resourcePath) != -1;
+    }
+
+    @Override
+    public Collection<ResourceLocation> getResources(PackType type, String namespace, String path, Predicate<ResourceLocation> filter) {
+        String namespacePrefix = type.getDirectory() + "/" + namespace + "/";
+        String prefix = namespacePrefix + path + "/";
+        List<ResourceLocation> resources = new ArrayList<>();
+
+        int start = Arrays.binarySearch(sortedPaths, prefix);
+        for (int i = start < 0 ? -start - 1 : start; i < sortedPaths.length && sortedPaths[i].startsWith(prefix); ++i) {
+            String resourcePath = sortedPaths[i];
+            if (resourcePath.endsWith(".mcmeta")) {
+                continue;
+            }
+            ResourceLocation location = ResourceLocation.tryParse(namespace + ":" + resourcePath.substring(namespacePrefix.length()));
+            if (location != null && filter.test(location)) {
+                resources.add(location);
+            }
+        }
+        return resources;
+    }
+
+    @Override
+    public Set<String> getNamespaces(PackType type) {
+        String typePrefix = type.getDirectory() + "/";
+        Set<String> namespaces = new HashSet<>();
+        for (String resourcePath : sortedPaths) {
+            int namespaceEnd = resourcePath.indexOf('/', typePrefix.length());
+            if (resourcePath.startsWith(typePrefix) && namespaceEnd != -1) {
+                String namespace = resourcePath.substring(typePrefix.length(), namespaceEnd);
+                if (ResourceLocation.isValidNamespace(namespace)) {
+                    namespaces.add(namespace);
+                }
+            }
+        }
+        return namespaces;
+    }
+
+    @Override
+    public void close() {
+        // The mapping is released when the buffer is garbage collected
+    }
+
+    private static long hashPath(byte[] pathBytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : pathBytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Write an archive containing the given files of a folder.
+     *
+     * @param paths The paths of the files relative to the folder, using {@code /}
+     *              as the separator.
+     */
+    public static void write(Path archive, Path folder, Collection<String> paths) throws IOException {
+        record Entry(long hash, byte[] path, String relativePath, long size) {
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (String relativePath : paths) {
+            byte[] pathBytes = relativePath.getBytes(StandardCharsets.UTF_8);
+            entries.add(new Entry(hashPath(pathBytes), pathBytes, relativePath, Files.size(folder.resolve(relativePath))));
+        }
+        entries.sort(Comparator.comparing(Entry::hash, Long::compareUnsigned).thenComparing(Entry::relativePath));
+
+        long pathOffset = HEADER_SIZE + (long) entries.size() * ENTRY_SIZE;
+        long dataOffset = pathOffset + entries.stream().mapToLong(entry -> entry.path.length).sum();
+        if (dataOffset + entries.stream().mapToLong(Entry::size).sum() > Integer.MAX_VALUE) {
+            throw new IOException("Too much data for a resource archive");
+        }
+
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (var entry : entries) {
+                out.writeLong(entry.hash);
+                out.writeInt((int) pathOffset);
+                out.writeInt(entry.path.length);
+                out.writeInt((int) dataOffset);
+                out.writeInt((int) entry.size);
+                pathOffset += entry.path.length;
+                dataOffset += entry.size;
+            }
+            for (var entry : entries) {
+                out.write(entry.path);
+            }
+            for (var entry : entries) {
+                long copied = Files.copy(folder.resolve(entry.relativePath), out);
+                if (copied != entry.size) {
+                    throw new IOException("File changed while writing resource archive: " + entry.relativePath);
+                }
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
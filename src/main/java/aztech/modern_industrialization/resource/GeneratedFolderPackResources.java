@@ -42,16 +42,20 @@ public class GeneratedFolderPackResources extends FolderPackResources {
     @Override
     protected InputStream getResource(String resourcePath) throws IOException {
         if ("pack.mcmeta".equals(resourcePath)) {
-            return new ByteArrayInputStream("""
-                    {
-                        "pack": {
-                            "description": "Generated resources for Modern Industrialization",
-                            "pack_format": %d
-                        }
-                    }
-                    """.formatted(type.getVersion(SharedConstants.getCurrentVersion())).getBytes());
+            return createPackMcmeta(type);
         } else {
             return super.getResource(resourcePath);
         }
     }
+
+    static InputStream createPackMcmeta(PackType type) {
+        return new ByteArrayInputStream("""
+                {
+                    "pack": {
+                        "description": "Generated resources for Modern Industrialization",
+                        "pack_format": %d
+                    }
+                }
+                """.formatted(type.getVersion(SharedConstants.getCurrentVersion())).getBytes());
+    }
 }
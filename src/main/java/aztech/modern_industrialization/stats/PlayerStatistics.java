@@ -26,6 +26,7 @@ package aztech.modern_industrialization.stats;
 import aztech.modern_industrialization.compat.ftbquests.FTBQuestsFacade;
 import aztech.modern_industrialization.compat.ftbteams.FTBTeamsFacade;
 import aztech.modern_industrialization.proxy.CommonProxy;
+import aztech.modern_industrialization.util.MISavedData;
 import com.google.common.primitives.Ints;
 import it.unimi.dsi.fastutil.objects.Reference2LongMap;
 import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
@@ -45,7 +46,11 @@ import net.minecraft.world.level.material.Fluid;
 import net.minecraft.world.level.material.Fluids;
 import org.jetbrains.annotations.Nullable;
 
-public class PlayerStatistics {
+/**
+ * The statistics of a single player, saved in their own file so that only the
+ * players whose statistics changed are written again.
+ */
+public class PlayerStatistics extends MISavedData {
     public static final PlayerStatistics DUMMY = new PlayerStatistics(null, null);
 
     private final PlayerStatisticsData data;
@@ -72,7 +77,11 @@ public class PlayerStatistics {
     }
 
     public CompoundTag toTag() {
-        CompoundTag nbt = new CompoundTag();
+        return save(new CompoundTag());
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag nbt) {
         nbt.put("usedItems", toNbt(Registry.ITEM, usedItems));
         nbt.put("producedItems", toNbt(Registry.ITEM, producedItems));
         nbt.put("usedFluids", toNbt(Registry.FLUID, usedFluids));
@@ -83,11 +92,13 @@ public class PlayerStatistics {
 
     public void addUsedItems(ItemLike what, long amount) {
         usedItems.computeIfAbsent(what.asItem(), i -> new StatisticValue()).add(amount);
+        setDirty();
     }
 
     public void addProducedItems(ItemLike what, long amount) {
         var item = what.asItem();
         producedItems.computeIfAbsent(item, i -> new StatisticValue()).add(amount);
+        setDirty();
 
         if (uuid != null) {
             FTBQuestsFacade.INSTANCE.addCompleted(uuid, item, amount);
@@ -102,10 +113,12 @@ public class PlayerStatistics {
 
     public void addUsedFluids(Fluid what, long amount) {
         usedFluids.computeIfAbsent(what, i -> new StatisticValue()).add(amount);
+        setDirty();
     }
 
     public void addProducedFluids(Fluid what, long amount) {
         producedFluids.computeIfAbsent(what, i -> new StatisticValue()).add(amount);
+        setDirty();
     }
 
     private void awardStat(ItemLike what, long amount) {
@@ -117,6 +130,7 @@ public class PlayerStatistics {
             player.awardStat(Stats.ITEM_CRAFTED.get(what.asItem()), Ints.saturatedCast(amount));
         } else {
             pendingCraftedStats.mergeLong(what.asItem(), amount, Long::sum);
+            setDirty();
         }
     }
 
@@ -127,6 +141,7 @@ public class PlayerStatistics {
             }
 
             pendingCraftedStats.clear();
+            setDirty();
         }
     }
 
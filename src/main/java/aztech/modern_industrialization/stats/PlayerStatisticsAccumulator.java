@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.stats;
+
+import aztech.modern_industrialization.util.TickHelper;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.material.Fluid;
+
+/**
+ * Buffers the statistics of a single machine, and adds them to the
+ * {@link PlayerStatistics} of its owner at most once per second.
+ */
+public class PlayerStatisticsAccumulator {
+    private static final int FLUSH_INTERVAL = 20;
+
+    private final Reference2LongOpenHashMap<Item> usedItems = new Reference2LongOpenHashMap<>(), producedItems = new Reference2LongOpenHashMap<>();
+    private final Reference2LongOpenHashMap<Fluid> usedFluids = new Reference2LongOpenHashMap<>(), producedFluids = new Reference2LongOpenHashMap<>();
+    private boolean empty = true;
+    private long nextFlushTick = 0;
+
+    public void addUsedItems(Item item, long amount) {
+        usedItems.addTo(item, amount);
+        empty = false;
+    }
+
+    public void addProducedItems(Item item, long amount) {
+        producedItems.addTo(item, amount);
+        empty = false;
+    }
+
+    public void addUsedFluids(Fluid fluid, long amount) {
+        usedFluids.addTo(fluid, amount);
+        empty = false;
+    }
+
+    public void addProducedFluids(Fluid fluid, long amount) {
+        producedFluids.addTo(fluid, amount);
+        empty = false;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Return true if there are buffered statistics, and the last flush was long
+     * enough ago.
+     */
+    public boolean shouldFlush() {
+        return !empty && TickHelper.getCurrentTick() >= nextFlushTick;
+    }
+
+    /**
+     * Add all buffered statistics to the given statistics, and clear the buffers.
+     */
+    public void flush(PlayerStatistics stats) {
+        for (var entry : usedItems.reference2LongEntrySet()) {
+            stats.addUsedItems(entry.getKey(), entry.getLongValue());
+        }
+        for (var entry : producedItems.reference2LongEntrySet()) {
+            stats.addProducedItems(entry.getKey(), entry.getLongValue());
+        }
+        for (var entry : usedFluids.reference2LongEntrySet()) {
+            stats.addUsedFluids(entry.getKey(), entry.getLongValue());
+        }
+        for (var entry : producedFluids.reference2LongEntrySet()) {
+            stats.addProducedFluids(entry.getKey(), entry.getLongValue());
+        }
+        usedItems.clear();
+        producedItems.clear();
+        usedFluids.clear();
+        producedFluids.clear();
+        empty = true;
+        nextFlushTick = TickHelper.getCurrentTick() + FLUSH_INTERVAL;
+    }
+}
@@ -28,53 +28,76 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.function.Function;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.storage.DimensionDataStorage;
 
+/**
+ * Entry point for the statistics of all players. The statistics of each player
+ * are saved in their own {@link PlayerStatistics} file, which is only read when
+ * the player's statistics are first accessed, and only written when they
+ * changed.
+ */
 public class PlayerStatisticsData extends MISavedData {
+    private final DimensionDataStorage storage;
     private final Map<UUID, PlayerStatistics> stats = new HashMap<>();
-    private final Function<UUID, PlayerStatistics> statsFactory = uuid -> new PlayerStatistics(this, uuid);
 
-    private PlayerStatisticsData(CompoundTag tag) {
+    /**
+     * Load the data from before statistics were split per player, and move every
+     * player to their own file.
+     */
+    private PlayerStatisticsData(DimensionDataStorage storage, CompoundTag tag) {
+        this(storage);
         for (var key : tag.getAllKeys()) {
             var uuid = UUID.fromString(key);
-            stats.put(uuid, new PlayerStatistics(this, uuid, tag.getCompound(key)));
+            var playerStats = new PlayerStatistics(this, uuid, tag.getCompound(key));
+            playerStats.setDirty();
+            storage.set(getPlayerFileName(uuid), playerStats);
+            stats.put(uuid, playerStats);
+        }
+        if (!stats.isEmpty()) {
+            // Remove the players from this file at the next save
+            setDirty();
         }
     }
 
-    private PlayerStatisticsData() {
+    private PlayerStatisticsData(DimensionDataStorage storage) {
+        this.storage = storage;
     }
 
     public PlayerStatistics get(UUID uuid) {
         Objects.requireNonNull(uuid);
-        return stats.computeIfAbsent(uuid, statsFactory);
+        var playerStats = stats.get(uuid);
+        if (playerStats == null) {
+            playerStats = storage.computeIfAbsent(tag -> new PlayerStatistics(this, uuid, tag), () -> new PlayerStatistics(this, uuid),
+                    getPlayerFileName(uuid));
+            stats.put(uuid, playerStats);
+        }
+        return playerStats;
     }
 
     public PlayerStatistics get(Player player) {
         return get(player.getUUID());
     }
 
-    @Override
-    public boolean isDirty() {
-        return true;
-    }
-
     @Override
     public CompoundTag save(CompoundTag tag) {
-        for (var entry : stats.entrySet()) {
-            tag.put(entry.getKey().toString(), entry.getValue().toTag());
-        }
+        // Players are saved in their own files
         return tag;
     }
 
     private static final String NAME = "modern_industrialization_player_stats";
 
+    private static String getPlayerFileName(UUID uuid) {
+        return NAME + "_" + uuid;
+    }
+
     public static PlayerStatisticsData get(MinecraftServer server) {
         var overworld = server.getLevel(ServerLevel.OVERWORLD);
         Objects.requireNonNull(overworld, "Couldn't find overworld");
-        return overworld.getDataStorage().computeIfAbsent(PlayerStatisticsData::new, PlayerStatisticsData::new, NAME);
+        var storage = overworld.getDataStorage();
+        return storage.computeIfAbsent(tag -> new PlayerStatisticsData(storage, tag), () -> new PlayerStatisticsData(storage), NAME);
     }
 }
@@ -25,6 +25,7 @@ package aztech.modern_industrialization.stats;
 
 import aztech.modern_industrialization.util.TickHelper;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
 
 public class StatisticValue {
     private long allTime = 0;
@@ -37,23 +38,39 @@ public class StatisticValue {
     }
 
     public StatisticValue(CompoundTag nbt) {
-        allTime = nbt.getLong("at");
-        for (var rate : StatisticsRate.values()) {
-            pastRates[rate.id] = nbt.getLong("p" + rate.id);
-            currentRates[rate.id] = nbt.getLong("c" + rate.id);
-            remainingTicks[rate.id] = nbt.getInt("r" + rate.id);
+        if (nbt.contains("v", Tag.TAG_LONG_ARRAY)) {
+            long[] values = nbt.getLongArray("v");
+            if (values.length == 1 + 3 * StatisticsRate.COUNT) {
+                allTime = values[0];
+                for (int i = 0; i < StatisticsRate.COUNT; ++i) {
+                    pastRates[i] = values[1 + i];
+                    currentRates[i] = values[1 + StatisticsRate.COUNT + i];
+                    remainingTicks[i] = (int) values[1 + 2 * StatisticsRate.COUNT + i];
+                }
+            }
+        } else {
+            // Format with one key per value
+            allTime = nbt.getLong("at");
+            for (var rate : StatisticsRate.values()) {
+                pastRates[rate.id] = nbt.getLong("p" + rate.id);
+                currentRates[rate.id] = nbt.getLong("c" + rate.id);
+                remainingTicks[rate.id] = nbt.getInt("r" + rate.id);
+            }
         }
         lastTick = TickHelper.getCurrentTick();
     }
 
     public CompoundTag toNbt() {
-        CompoundTag nbt = new CompoundTag();
-        nbt.putLong("at", allTime);
-        for (var rate : StatisticsRate.values()) {
-            nbt.putLong("p" + rate.id, pastRates[rate.id]);
-            nbt.putLong("c" + rate.id, currentRates[rate.id]);
-            nbt.putInt("r" + rate.id, remainingTicks[rate.id]);
+        // All values in a single array: all time, then past rates, current rates and remaining ticks
+        long[] values = new long[1 + 3 * StatisticsRate.COUNT];
+        values[0] = allTime;
+        for (int i = 0; i < StatisticsRate.COUNT; ++i) {
+            values[1 + i] = pastRates[i];
+            values[1 + StatisticsRate.COUNT + i] = currentRates[i];
+            values[1 + 2 * StatisticsRate.COUNT + i] = remainingTicks[i];
         }
+        CompoundTag nbt = new CompoundTag();
+        nbt.putLongArray("v", values);
         return nbt;
     }
 
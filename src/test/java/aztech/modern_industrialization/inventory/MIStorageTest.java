@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 Azercoco & Technici4n
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package aztech.modern_industrialization.inventory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import aztech.modern_industrialization.util.Simulation;
+import java.util.ArrayList;
+import java.util.List;
+import net.fabricmc.fabric.api.transfer.v1.storage.TransferVariant;
+import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
+import net.minecraft.core.Registry;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+public class MIStorageTest {
+    private static final TestVariant BLANK = new TestVariant("");
+    private static final TestVariant STONE = new TestVariant("stone");
+    private static final TestVariant DIRT = new TestVariant("dirt");
+
+    @Test
+    public void slotEmptiedAndUnlockedBeforeReindexing() {
+        TestStack stack = new TestStack();
+        stack.setKey(STONE);
+        stack.setAmount(10);
+        stack.playerLock("stone", Simulation.ACT);
+        TestStorage storage = new TestStorage(List.of(stack));
+
+        // Index the slot while its resource and its lock are the same object.
+        try (Transaction tx = Transaction.openOuter()) {
+            assertEquals(1, storage.extract(STONE, 1, tx));
+        }
+
+        // Empty and unlock the slot, as a player would through the GUI, then insert through the index.
+        stack.setAmount(0);
+        stack.togglePlayerLock();
+        try (Transaction tx = Transaction.openOuter()) {
+            assertEquals(5, storage.insert(DIRT, 5, tx));
+            assertEquals(0, storage.extract(STONE, 1, tx));
+            assertEquals(5, storage.extract(DIRT, 5, tx));
+        }
+    }
+
+    @Test
+    public void slotRestoredByAbortedTransaction() {
+        TestStack stack = new TestStack();
+        stack.setKey(STONE);
+        stack.setAmount(10);
+        TestStorage storage = new TestStorage(List.of(stack));
+
+        try (Transaction tx = Transaction.openOuter()) {
+            assertEquals(10, storage.extract(STONE, 10, tx));
+            assertEquals(0, storage.extract(STONE, 10, tx));
+        }
+
+        // The aborted extraction restored the slot, so it must be found again.
+        try (Transaction tx = Transaction.openOuter()) {
+            assertEquals(10, storage.extract(STONE, 10, tx));
+        }
+    }
+
+    private static class TestStorage extends MIStorage<String, TestVariant, TestStack> {
+        private TestStorage(List<TestStack> stacks) {
+            super(new ArrayList<>(stacks), false);
+            enableIndex();
+        }
+    }
+
+    private static class TestStack extends AbstractConfigurableStack<String, TestVariant> {
+        private TestStack() {
+            this.pipesInsert = true;
+            this.pipesExtract = true;
+        }
+
+        @Override
+        protected String getEmptyInstance() {
+            return "";
+        }
+
+        @Override
+        protected TestVariant getBlankVariant() {
+            return BLANK;
+        }
+
+        @Override
+        protected Registry<String> getRegistry() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected TestVariant readVariantFromNbt(CompoundTag compound) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected long getRemainingCapacityFor(TestVariant key) {
+            return getCapacity() - amount;
+        }
+
+        @Override
+        public long getCapacity() {
+            return 64;
+        }
+    }
+
+    private record TestVariant(String object) implements TransferVariant<String> {
+        @Override
+        public boolean isBlank() {
+            return object.isEmpty();
+        }
+
+        @Override
+        public String getObject() {
+            return object;
+        }
+
+        @Override
+        public @Nullable CompoundTag getNbt() {
+            return null;
+        }
+
+        @Override
+        public CompoundTag toNbt() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void toPacket(FriendlyByteBuf buf) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}